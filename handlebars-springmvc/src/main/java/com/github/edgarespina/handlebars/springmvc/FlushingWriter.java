@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.springmvc;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.springframework.util.Assert;
+
+/**
+ * A writer that flushes the target writer after a number of characters
+ * and/or right after the closing <code>&lt;/head&gt;</code> tag. It reduces
+ * the time to first byte of big pages.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+class FlushingWriter extends Writer {
+
+  /**
+   * The closing head tag.
+   */
+  private static final char[] HEAD = "</head>".toCharArray();
+
+  /**
+   * The target writer.
+   */
+  private final Writer writer;
+
+  /**
+   * Flush after this number of characters. Zero or less means never.
+   */
+  private final int threshold;
+
+  /**
+   * The number of characters written since the last flush.
+   */
+  private int pending;
+
+  /**
+   * The number of characters of {@link #HEAD} matched so far, or -1 if the
+   * head tag doesn't need to be detected.
+   */
+  private int head;
+
+  /**
+   * Creates a new {@link FlushingWriter}.
+   *
+   * @param writer The target writer. Required.
+   * @param threshold Flush after this number of characters. Zero or less
+   *        means never.
+   * @param flushAfterHead True, if the writer should be flushed after the
+   *        closing head tag.
+   */
+  public FlushingWriter(final Writer writer, final int threshold,
+      final boolean flushAfterHead) {
+    Assert.notNull(writer, "The writer is required.");
+    this.writer = writer;
+    this.threshold = threshold;
+    this.head = flushAfterHead ? 0 : -1;
+  }
+
+  @Override
+  public void write(final char[] cbuf, final int off, final int len)
+      throws IOException {
+    writer.write(cbuf, off, len);
+    boolean flush = false;
+    if (head >= 0) {
+      for (int i = off; i < off + len && head >= 0; i++) {
+        flush |= matchHead(cbuf[i]);
+      }
+    }
+    written(len, flush);
+  }
+
+  @Override
+  public void write(final String str, final int off, final int len)
+      throws IOException {
+    writer.write(str, off, len);
+    boolean flush = false;
+    if (head >= 0) {
+      for (int i = off; i < off + len && head >= 0; i++) {
+        flush |= matchHead(str.charAt(i));
+      }
+    }
+    written(len, flush);
+  }
+
+  @Override
+  public void write(final int c) throws IOException {
+    writer.write(c);
+    written(1, head >= 0 && matchHead((char) c));
+  }
+
+  /**
+   * Advance the head tag detection.
+   *
+   * @param ch The next character.
+   * @return True, if the closing head tag was found.
+   */
+  private boolean matchHead(final char ch) {
+    if (Character.toLowerCase(ch) == HEAD[head]) {
+      head++;
+      if (head == HEAD.length) {
+        // Found: stop looking.
+        head = -1;
+        return true;
+      }
+    } else {
+      head = ch == HEAD[0] ? 1 : 0;
+    }
+    return false;
+  }
+
+  /**
+   * Count the written characters and flush if required.
+   *
+   * @param len The number of characters written.
+   * @param force True, for flushing right now.
+   * @throws IOException If the writer cannot be flushed.
+   */
+  private void written(final int len, final boolean force)
+      throws IOException {
+    pending += len;
+    if (force || threshold > 0 && pending >= threshold) {
+      flush();
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    pending = 0;
+    writer.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    writer.close();
+  }
+}
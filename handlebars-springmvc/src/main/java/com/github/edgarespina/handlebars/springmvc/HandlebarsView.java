@@ -17,6 +17,7 @@
  */
 package com.github.edgarespina.handlebars.springmvc;
 
+import java.io.Writer;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -40,6 +41,16 @@ public class HandlebarsView extends AbstractTemplateView {
    */
   private Template template;
 
+  /**
+   * Flush the response after this number of characters. Zero means never.
+   */
+  private int flushThreshold;
+
+  /**
+   * True, if the response should be flushed after the closing head tag.
+   */
+  private boolean flushAfterHead;
+
   /**
    * Merge model into the view. {@inheritDoc}
    */
@@ -47,7 +58,33 @@ public class HandlebarsView extends AbstractTemplateView {
   protected void renderMergedTemplateModel(final Map<String, Object> model,
       final HttpServletRequest request, final HttpServletResponse response)
       throws Exception {
-    template.apply(model, response.getWriter());
+    Writer writer = response.getWriter();
+    if (flushThreshold > 0 || flushAfterHead) {
+      writer = new FlushingWriter(writer, flushThreshold, flushAfterHead);
+    }
+    template.apply(model, writer);
+  }
+
+  /**
+   * Flush the response every time the given number of characters has been
+   * written, so the client can start processing the page early.
+   *
+   * @param flushThreshold The number of characters. Zero means never.
+   */
+  public void setFlushThreshold(final int flushThreshold) {
+    Assert.isTrue(flushThreshold >= 0, "The flush threshold must be >= 0.");
+    this.flushThreshold = flushThreshold;
+  }
+
+  /**
+   * If true, the response is flushed right after the closing head tag, so the
+   * browser can start fetching the page assets while the body is still
+   * rendering.
+   *
+   * @param flushAfterHead True, for flushing after the closing head tag.
+   */
+  public void setFlushAfterHead(final boolean flushAfterHead) {
+    this.flushAfterHead = flushAfterHead;
   }
 
   /**
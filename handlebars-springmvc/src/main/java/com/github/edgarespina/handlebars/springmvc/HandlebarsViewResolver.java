@@ -47,6 +47,16 @@ public class HandlebarsViewResolver extends AbstractTemplateViewResolver {
    */
   private Handlebars handlebars;
 
+  /**
+   * Flush the response after this number of characters. Zero means never.
+   */
+  private int flushThreshold;
+
+  /**
+   * True, if the response should be flushed after the closing head tag.
+   */
+  private boolean flushAfterHead;
+
   /**
    * Creates a new {@link HandlebarsViewResolver}.
    *
@@ -104,9 +114,36 @@ public class HandlebarsViewResolver extends AbstractTemplateViewResolver {
     URI uri = URI.create(url);
     Template template = handlebars.compile(uri);
     view.setTemplate(template);
+    if (flushThreshold > 0) {
+      view.setFlushThreshold(flushThreshold);
+    }
+    if (flushAfterHead) {
+      view.setFlushAfterHead(true);
+    }
     return view;
   }
 
+  /**
+   * Flush the response every time the given number of characters has been
+   * written. See {@link HandlebarsView#setFlushThreshold(int)}.
+   *
+   * @param flushThreshold The number of characters. Zero means never.
+   */
+  public void setFlushThreshold(final int flushThreshold) {
+    Assert.isTrue(flushThreshold >= 0, "The flush threshold must be >= 0.");
+    this.flushThreshold = flushThreshold;
+  }
+
+  /**
+   * Flush the response right after the closing head tag. See
+   * {@link HandlebarsView#setFlushAfterHead(boolean)}.
+   *
+   * @param flushAfterHead True, for flushing after the closing head tag.
+   */
+  public void setFlushAfterHead(final boolean flushAfterHead) {
+    this.flushAfterHead = flushAfterHead;
+  }
+
   /**
    * The required view class.
    *
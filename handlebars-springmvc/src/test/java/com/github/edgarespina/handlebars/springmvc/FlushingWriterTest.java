@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.springmvc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link FlushingWriter}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class FlushingWriterTest {
+
+  static class CountingWriter extends StringWriter {
+    int flushes;
+
+    @Override
+    public void flush() {
+      flushes++;
+    }
+  }
+
+  @Test
+  public void threshold() throws IOException {
+    CountingWriter target = new CountingWriter();
+    FlushingWriter writer = new FlushingWriter(target, 4, false);
+    writer.write("ab");
+    assertEquals(0, target.flushes);
+    writer.write("cd");
+    assertEquals(1, target.flushes);
+    writer.write("efghij");
+    assertEquals(2, target.flushes);
+    assertEquals("abcdefghij", target.toString());
+  }
+
+  @Test
+  public void afterHead() throws IOException {
+    CountingWriter target = new CountingWriter();
+    FlushingWriter writer = new FlushingWriter(target, 0, true);
+    writer.write("<html><head><title>t</title></he");
+    assertEquals(0, target.flushes);
+    writer.write("AD><body>");
+    assertEquals(1, target.flushes);
+    writer.write("</head>");
+    assertEquals(1, target.flushes);
+  }
+
+  @Test
+  public void never() throws IOException {
+    CountingWriter target = new CountingWriter();
+    FlushingWriter writer = new FlushingWriter(target, 0, false);
+    writer.write("<head></head>");
+    assertEquals(0, target.flushes);
+  }
+}
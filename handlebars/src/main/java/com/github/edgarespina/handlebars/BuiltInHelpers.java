@@ -17,16 +17,27 @@
  */
 package com.github.edgarespina.handlebars;
 
+import static org.parboiled.common.Preconditions.checkArgument;
 import static org.parboiled.common.Preconditions.checkNotNull;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Handlebars built-in helpers are present here.
@@ -55,9 +66,25 @@ public enum BuiltInHelpers implements Helper<Object> {
   },
 
   /**
+   * <p>
    * You can iterate over a list using the built-in each helper. Inside the
    * block, you can use <code>this</code> to reference the element being
    * iterated over.
+   * </p>
+   * <p>
+   * Big lists can be rendered in parallel if an executor was set with
+   * {@link Handlebars#setExecutor(ExecutorService)}:
+   * </p>
+   *
+   * <pre>
+   *  {{#each items parallel=true}}
+   *    ...
+   *  {{/each}}
+   * </pre>
+   *
+   * The list is split in chunks (one per available processor or the value of
+   * the <code>chunks</code> hash), each chunk is rendered in its own buffer and
+   * the buffers are concatenated in the original order.
    */
   EACH {
     @Override
@@ -69,12 +96,106 @@ public enum BuiltInHelpers implements Helper<Object> {
       if (options.isEmpty(elements)) {
         buffer.append(options.inverse());
       } else {
-        for (Object element : elements) {
-          buffer.append(options.fn(element));
+        ExecutorService executor = options.handlebars.getExecutor();
+        Object parallel = options.hash("parallel", Boolean.FALSE);
+        if (executor != null && Boolean.TRUE.equals(parallel)) {
+          parallel(executor, elements, options, buffer);
+        } else {
+          for (Object element : elements) {
+            buffer.append(options.fn(element));
+          }
         }
       }
       return buffer.toString();
     }
+
+    /**
+     * Render the elements in parallel and append the output in order.
+     *
+     * @param executor The executor service.
+     * @param elements The elements to render.
+     * @param options The helper options.
+     * @param buffer The output buffer.
+     * @throws IOException If a resource cannot be loaded.
+     */
+    private void parallel(final ExecutorService executor,
+        final Iterable<Object> elements, final Options options,
+        final StringBuilder buffer) throws IOException {
+      final List<Object> list = toList(elements);
+      int size = list.size();
+      long chunks = number(options, "chunks",
+          Runtime.getRuntime().availableProcessors());
+      checkArgument(chunks > 0, "chunks must be greater than zero: %s",
+          chunks);
+      int chunkCount = (int) Math.max(1, Math.min(size, chunks));
+      int chunkSize = (size + chunkCount - 1) / chunkCount;
+      List<FutureTask<CharSequence>> tasks =
+          new ArrayList<FutureTask<CharSequence>>(chunkCount);
+      for (int start = 0; start < size; start += chunkSize) {
+        final int from = start;
+        final int to = Math.min(size, start + chunkSize);
+        FutureTask<CharSequence> task =
+            new FutureTask<CharSequence>(new Callable<CharSequence>() {
+              @Override
+              public CharSequence call() throws IOException {
+                StringBuilder chunk = new StringBuilder();
+                for (int i = from; i < to; i++) {
+                  chunk.append(options.fn(list.get(i)));
+                }
+                return chunk;
+              }
+            });
+        tasks.add(task);
+      }
+      // The first chunk is always rendered by the caller.
+      for (int i = 1; i < tasks.size(); i++) {
+        executor.execute(tasks.get(i));
+      }
+      try {
+        for (FutureTask<CharSequence> task : tasks) {
+          // Run it here if no worker picked it up yet, so nested parallel
+          // sections can't starve the pool.
+          task.run();
+          buffer.append(task.get());
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException(ex.getMessage());
+      } catch (ExecutionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new HandlebarsException((Exception) cause);
+      } finally {
+        for (FutureTask<CharSequence> task : tasks) {
+          task.cancel(false);
+        }
+      }
+    }
+
+    /**
+     * Copy the elements into a random access list.
+     *
+     * @param elements The elements.
+     * @return A random access list.
+     */
+    private List<Object> toList(final Iterable<Object> elements) {
+      if (elements instanceof List && elements instanceof RandomAccess) {
+        return (List<Object>) elements;
+      }
+      List<Object> list = new ArrayList<Object>();
+      for (Object element : elements) {
+        list.add(element);
+      }
+      return list;
+    }
   },
 
   /**
@@ -366,6 +487,63 @@ public enum BuiltInHelpers implements Helper<Object> {
     }
   },
 
+  /**
+   * <p>
+   * Flush the output writer, so the client can start processing the content
+   * rendered so far. For example, a browser can start fetching the assets
+   * listed in the head while the body is still rendering:
+   * </p>
+   *
+   * <pre>
+   * &lt;/head&gt;
+   * {{flush}}
+   * &lt;body&gt;
+   * </pre>
+   *
+   * Sections buffer their content, so a flush inside a section has no effect.
+   */
+  FLUSH {
+    @Override
+    public CharSequence apply(final Object context, final Options options)
+        throws IOException {
+      options.flush();
+      return null;
+    }
+  },
+
+  /**
+   * <p>
+   * Render the block once and reuse the output until it expires or is evicted
+   * from the {@link Handlebars#getFragmentCache() fragment cache}:
+   * </p>
+   *
+   * <pre>
+   * {{#cache key=user.id ttl=60}}
+   *   ...
+   * {{/cache}}
+   * </pre>
+   *
+   * The output is cached per block and key. The optional ttl is in seconds;
+   * without it the output is valid until it's evicted.
+   */
+  CACHE {
+    @Override
+    public CharSequence apply(final Object context, final Options options)
+        throws IOException {
+      Object key = Arrays.asList(options.fn, options.hash("key"),
+          Arrays.asList(options.params));
+      long ttl = number(options, "ttl", 0);
+      checkArgument(ttl >= 0, "ttl must be zero or greater: %s", ttl);
+      return options.handlebars.getFragmentCache().get(key, ttl,
+          TimeUnit.SECONDS, new Callable<CharSequence>() {
+            @Override
+            public CharSequence call() throws IOException {
+              return options.fn().toString();
+            }
+          });
+    }
+  },
+
   /**
    * The log helper.
    */
@@ -397,6 +575,33 @@ public enum BuiltInHelpers implements Helper<Object> {
     handlebars.registerHelper(name, this);
   }
 
+  /**
+   * Read a number from the hash. Numbers and strings with a number are
+   * accepted.
+   *
+   * @param options The helper options.
+   * @param name The hash's name.
+   * @param defaultValue The default value.
+   * @return The number.
+   * @throws IllegalArgumentException If the value isn't a number.
+   */
+  static long number(final Options options, final String name,
+      final long defaultValue) {
+    Object value = options.hash(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    }
+    try {
+      return Long.parseLong(value.toString().trim());
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException(name + " must be a number: "
+          + value);
+    }
+  }
+
   /**
    * Regiter all the built-in helpers.
    *
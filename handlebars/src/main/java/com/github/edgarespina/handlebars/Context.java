@@ -18,6 +18,7 @@ import static org.parboiled.common.Preconditions.checkNotNull;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.github.edgarespina.handlebars.context.JavaBeanValueResolver;
 import com.github.edgarespina.handlebars.context.MapValueResolver;
@@ -75,6 +76,33 @@ public final class Context {
     }
   }
 
+  /**
+   * A thread safe storage. Putting a null value removes the key.
+   *
+   * @author edgar.espina
+   * @since 0.2.2
+   * @param <V> The value type.
+   */
+  private static class Storage<V> extends ConcurrentHashMap<String, V> {
+
+    /**
+     * The serial UID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public V put(final String key, final V value) {
+      return value == null ? remove(key) : super.put(key, value);
+    }
+
+    @Override
+    public void putAll(final Map<? extends String, ? extends V> map) {
+      for (Entry<? extends String, ? extends V> entry : map.entrySet()) {
+        put(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
   /**
    * A context builder.
    *
@@ -157,9 +185,7 @@ public final class Context {
           context.resolver = context.parent.resolver;
         } else {
           // Set default value resolvers: Java Bean like and Map resolvers.
-          context.setResolver(
-              new CompositeValueResolver(MapValueResolver.INSTANCE,
-                  JavaBeanValueResolver.INSTANCE));
+          context.setResolver(DEFAULT_RESOLVER);
         }
         // Expand resolver to the extended context.
         if (context.extendedContext != null) {
@@ -170,6 +196,13 @@ public final class Context {
     }
   }
 
+  /**
+   * The default value resolvers: maps and JavaBeans.
+   */
+  private static final ValueResolver DEFAULT_RESOLVER =
+      new CompositeValueResolver(MapValueResolver.INSTANCE,
+          JavaBeanValueResolver.INSTANCE);
+
   /**
    * Mark for fail context lookup.
    */
@@ -230,8 +263,10 @@ public final class Context {
     Context root = new Context(model);
     root.extendedContext = new Context(new HashMap<String, Object>());
     root.parent = null;
-    root.storage = new HashMap<String, Object>();
-    root.storage.put(PARTIALS, new HashMap<String, Template>());
+    // Child contexts share the storage, and they might be rendered by other
+    // threads (see parallel each).
+    root.storage = new Storage<Object>();
+    root.storage.put(PARTIALS, new Storage<Template>());
     return root;
   }
 
@@ -278,7 +313,8 @@ public final class Context {
 
   /**
    * A contextual storage useful for saving values in a thread-safety way. The
-   * storage is cleaned up once a template has been rendered.
+   * storage is cleaned up once a template has been rendered. Null keys aren't
+   * allowed, putting a null value removes the key.
    *
    * @return A contextual storage. Never null.
    */
@@ -286,6 +322,16 @@ public final class Context {
     return storage;
   }
 
+  /**
+   * True if values are looked up with the default value resolvers: maps and
+   * JavaBeans. Internal use.
+   *
+   * @return True if values are looked up with the default value resolvers.
+   */
+  public boolean defaultResolvers() {
+    return resolver == DEFAULT_RESOLVER;
+  }
+
   /**
    * Resolved as '.' or 'this' inside templates.
    *
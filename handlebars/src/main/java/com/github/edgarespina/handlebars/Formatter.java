@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+/**
+ * Format model values of a given type before they are written out by a
+ * variable, like: <code>{{price}}</code>. Formatters are registered with
+ * {@link Handlebars#registerFormatter(Class, Formatter)}. The result is escaped
+ * unless it's a {@link Handlebars.SafeString} or the variable is a triple
+ * mustache.
+ *
+ * @author edgar.espina
+ * @param <T> The value type.
+ * @since 0.2.2
+ */
+public interface Formatter<T> {
+
+  /**
+   * Format the given value.
+   *
+   * @param value The value. Not null.
+   * @return The text to write out.
+   */
+  CharSequence format(T value);
+}
@@ -23,14 +23,25 @@ import static org.slf4j.LoggerFactory.getLogger;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
 import java.net.URI;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 
+import com.github.edgarespina.handlebars.cache.FragmentCache;
+import com.github.edgarespina.handlebars.cache.StatisticsCache;
+import com.github.edgarespina.handlebars.internal.IncrementalParser;
 import com.github.edgarespina.handlebars.internal.Parser;
 import com.github.edgarespina.handlebars.io.ClassTemplateLoader;
 
@@ -104,6 +115,145 @@ public class Handlebars {
     }
   }
 
+  /**
+   * <p>
+   * A {@link FutureString} is the result of a helper that produces its
+   * content in the background. It tells {@link Handlebars} to keep rendering
+   * and write the content once it's available.
+   * </p>
+   * <p>
+   * Templates rendered with {@link Template#applyAsync(Object, Writer)} don't
+   * wait for pending {@link FutureString}, so independent fragments are
+   * computed concurrently and written in template order. Any other render
+   * blocks until the value is ready.
+   * </p>
+   *
+   * <pre>
+   * handlebars.registerHelper("slow", new Helper&lt;Object&gt;() {
+   *   public CharSequence apply(Object context, Options options) {
+   *     return new FutureString(executor.submit(...));
+   *   }
+   * });
+   * </pre>
+   *
+   * @author edgar.espina
+   * @since 0.2.2
+   */
+  public static class FutureString implements CharSequence {
+
+    /**
+     * The pending content.
+     */
+    private final Future<? extends CharSequence> content;
+
+    /**
+     * True if the content must be escaped as HTML.
+     */
+    private final boolean escape;
+
+    /**
+     * The content, once it's ready and escaped (if required).
+     */
+    private volatile String value;
+
+    /**
+     * Creates a new {@link FutureString}.
+     *
+     * @param content The pending content. Required.
+     */
+    public FutureString(final Future<? extends CharSequence> content) {
+      this(content, false);
+    }
+
+    /**
+     * Creates a new {@link FutureString}.
+     *
+     * @param content The pending content. Required.
+     * @param escape True if the content must be escaped as HTML.
+     */
+    private FutureString(final Future<? extends CharSequence> content,
+        final boolean escape) {
+      this.content = checkNotNull(content, "The content is required.");
+      this.escape = escape;
+    }
+
+    /**
+     * A {@link FutureString} of the same content escaped as HTML.
+     *
+     * @return A {@link FutureString} of the same content escaped as HTML.
+     */
+    public FutureString escape() {
+      return escape ? this : new FutureString(content, true);
+    }
+
+    /**
+     * True if the content is ready.
+     *
+     * @return True if the content is ready.
+     */
+    public boolean isDone() {
+      return content.isDone();
+    }
+
+    @Override
+    public int length() {
+      return toString().length();
+    }
+
+    @Override
+    public char charAt(final int index) {
+      return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+      return toString().subSequence(start, end);
+    }
+
+    /**
+     * Wait for the content if necessary. The content is resolved and escaped
+     * once, later calls return the same string.
+     *
+     * @return The content.
+     */
+    @Override
+    public String toString() {
+      String result = value;
+      if (result == null) {
+        result = resolve();
+        value = result;
+      }
+      return result;
+    }
+
+    /**
+     * Wait for the content and escape it, if required.
+     *
+     * @return The content.
+     */
+    private String resolve() {
+      try {
+        CharSequence result = content.get();
+        if (escape) {
+          return Utils.escapeExpression(result);
+        }
+        return result == null ? "" : result.toString();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new HandlebarsException(ex);
+      } catch (ExecutionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new HandlebarsException((Exception) cause);
+      }
+    }
+  }
+
   /**
    * Utilities function like: {@link Utils#escapeExpression(CharSequence)} and
    * {@link Utils#isEmpty(Object)}.
@@ -169,31 +319,153 @@ public class Handlebars {
       StringBuilder html = new StringBuilder(input.length());
       for (int i = 0; i < input.length(); i++) {
         char ch = input.charAt(i);
-        switch (ch) {
-          case '<':
-            html.append("&lt;");
-            break;
-          case '>':
-            html.append("&gt;");
-            break;
-          case '"':
-            html.append("&quot;");
-            break;
-          case '\'':
-            html.append("&#x27;");
-            break;
-          case '`':
-            html.append("&#x60;");
-            break;
-          case '&':
-            html.append("&amp;");
-            break;
-          default:
-            html.append(ch);
+        String entity = entity(ch);
+        if (entity == null) {
+          html.append(ch);
+        } else {
+          html.append(entity);
         }
       }
       return html.toString();
     }
+
+    /**
+     * Escapes the characters in a {@code CharSequence} using HTML entities,
+     * like {@link #escapeExpression(CharSequence)} does, but the result is
+     * written to the given writer. Runs of safe characters are written as is,
+     * so no intermediate string is created.
+     *
+     * @param input the {@code CharSequence} to escape, may be null.
+     * @param writer The writer. Required.
+     * @throws IOException If the writer fails.
+     */
+    public static void escapeExpression(final CharSequence input,
+        final Writer writer) throws IOException {
+      if (input == null || input.length() == 0) {
+        return;
+      }
+      // Don't escape SafeStrings, since they're already safe
+      if (input instanceof SafeString) {
+        writer.append(input);
+        return;
+      }
+      int length = input.length();
+      int start = 0;
+      for (int i = 0; i < length; i++) {
+        String entity = entity(input.charAt(i));
+        if (entity != null) {
+          if (i > start) {
+            writer.append(input, start, i);
+          }
+          writer.write(entity);
+          start = i + 1;
+        }
+      }
+      if (start == 0) {
+        writer.append(input);
+      } else if (start < length) {
+        writer.append(input, start, length);
+      }
+    }
+
+    /**
+     * The HTML entity of a character.
+     *
+     * @param ch The character.
+     * @return The HTML entity or null if the character is safe.
+     */
+    private static String entity(final char ch) {
+      switch (ch) {
+        case '<':
+          return "&lt;";
+        case '>':
+          return "&gt;";
+        case '"':
+          return "&quot;";
+        case '\'':
+          return "&#x27;";
+        case '`':
+          return "&#x60;";
+        case '&':
+          return "&amp;";
+        default:
+          return null;
+      }
+    }
+  }
+
+  /**
+   * The cache key of a template created from a string. Keys are equal only if
+   * the content and the delimiters are equal, so two inputs with the same
+   * hash code never share a template. The key keeps a reference to the input
+   * instead of a copy of it.
+   *
+   * @author edgar.espina
+   * @since 0.2.2
+   */
+  private static final class InlineKey {
+
+    /**
+     * The template's content.
+     */
+    private final String content;
+
+    /**
+     * The start delimiter.
+     */
+    private final String startDelimiter;
+
+    /**
+     * The end delimiter.
+     */
+    private final String endDelimiter;
+
+    /**
+     * The hash code.
+     */
+    private final int hash;
+
+    /**
+     * Creates a new {@link InlineKey}.
+     *
+     * @param content The template's content. Required.
+     * @param startDelimiter The start delimiter. Required.
+     * @param endDelimiter The end delimiter. Required.
+     */
+    public InlineKey(final String content, final String startDelimiter,
+        final String endDelimiter) {
+      this.content = content;
+      this.startDelimiter = startDelimiter;
+      this.endDelimiter = endDelimiter;
+      this.hash = (content.hashCode() * 31 + startDelimiter.hashCode()) * 31
+          + endDelimiter.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (obj instanceof InlineKey) {
+        InlineKey that = (InlineKey) obj;
+        return hash == that.hash
+            && startDelimiter.equals(that.startDelimiter)
+            && endDelimiter.equals(that.endDelimiter)
+            && content.equals(that.content);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return "embedded@" + Integer.toHexString(hash) + "_" + startDelimiter
+          + endDelimiter;
+    }
   }
 
   /**
@@ -243,10 +515,69 @@ public class Handlebars {
   private final TemplateCache cache;
 
   /**
-   * The helper registry.
+   * The helper registry. It's an immutable snapshot that is replaced on every
+   * registration, so reads never lock.
+   */
+  private volatile Map<String, Helper<Object>> helpers =
+      Collections.emptyMap();
+
+  /**
+   * The formatter registry. Like the helper registry, it's an immutable
+   * snapshot that is replaced on every registration.
+   */
+  private volatile Map<Class<?>, Formatter<Object>> formatters =
+      Collections.emptyMap();
+
+  /**
+   * The formatters found for a class, including its super types. Replaced
+   * after every registration.
+   */
+  private volatile Map<Class<?>, Formatter<Object>> formatterCache =
+      new ConcurrentHashMap<Class<?>, Formatter<Object>>();
+
+  /**
+   * Mark classes without a formatter in {@link #formatterCache}.
+   */
+  private static final Formatter<Object> NO_FORMATTER =
+      new Formatter<Object>() {
+        @Override
+        public CharSequence format(final Object value) {
+          return value.toString();
+        }
+      };
+
+  /**
+   * The executor service used by parallel sections. Optional.
+   */
+  private volatile ExecutorService executor;
+
+  /**
+   * The cache used by the <code>cache</code> helper.
+   */
+  private FragmentCache fragmentCache = new FragmentCache();
+
+  /**
+   * The render listener. Optional.
    */
-  private final Map<String, Helper<Object>> helpers =
-      new HashMap<String, Helper<Object>>();
+  private volatile RenderListener renderListener;
+
+  /**
+   * True, if templates are lowered into instruction arrays.
+   */
+  private volatile boolean flatten;
+
+  /**
+   * True, if the whitespace of the static text is collapsed.
+   */
+  private volatile boolean minify;
+
+  /**
+   * The static text of the compiled templates. Values are weak too, so text
+   * is released once no template uses it.
+   */
+  private final Map<String, WeakReference<String>> textPool =
+      Collections.synchronizedMap(
+          new WeakHashMap<String, WeakReference<String>>());
 
   static {
     /**
@@ -316,11 +647,12 @@ public class Handlebars {
     Template template = cache.get(key);
     if (template == null) {
       debug("Key not found: %s", key);
+      long start = System.nanoTime();
       Reader reader = loader.load(uri);
-      template =
-          Parser.create(this, uri.toString(), startDelimiter, endDelimiter)
-              .parse(reader);
-      cache.put(key, template);
+      Parser parser =
+          Parser.create(this, uri.toString(), startDelimiter, endDelimiter);
+      template = parser.parse(reader);
+      cache(key, template, parser.filename(), start);
       debug("Key saved: %s", key);
     }
     return template;
@@ -350,20 +682,91 @@ public class Handlebars {
       final String endDelimiter) throws IOException {
     checkNotNull(input, "The input text is required.");
     checkArgument(input.length() > 0, "The input text is required.");
-    String key = input.hashCode() + "_" + startDelimiter + endDelimiter;
+    checkNotNull(startDelimiter, "The start delimiter is required.");
+    checkNotNull(endDelimiter, "The end delimiter is required.");
+    InlineKey key = new InlineKey(input, startDelimiter, endDelimiter);
     debug("Looking for: %s", key);
     Template template = cache.get(key);
     if (template == null) {
       debug("Key not found: %s", key);
-      template =
-          Parser.create(this, "embedded", startDelimiter, endDelimiter).parse(
-              input);
-      cache.put(key, template);
+      long start = System.nanoTime();
+      Parser parser =
+          Parser.create(this, "embedded", startDelimiter, endDelimiter);
+      template = parser.parse(input);
+      cache(key, template, parser.filename(), start);
       debug("Key saved: %s", key);
     }
     return template;
   }
 
+  /**
+   * Put a template in the cache and report its compilation to the cache
+   * statistics and the render listener, if any.
+   *
+   * @param key The cache key.
+   * @param template The template.
+   * @param filename The template's file name, as reported by the parser.
+   * @param start When the compilation started, in nanoseconds.
+   */
+  private void cache(final Object key, final Template template,
+      final String filename, final long start) {
+    long nanos = System.nanoTime() - start;
+    if (cache instanceof StatisticsCache) {
+      ((StatisticsCache) cache).put(key, template, nanos);
+    } else {
+      cache.put(key, template);
+    }
+    RenderListener listener = renderListener;
+    if (listener != null) {
+      listener.compile(filename, nanos);
+    }
+  }
+
+  /**
+   * Parse a template that was edited, like in a live preview. Only the
+   * top-level lines touched by the edit are parsed again; the rest of the
+   * previous template is reused. The template is parsed as a whole if the
+   * previous template wasn't created by this method, or if the input changes
+   * the delimiters or has errors, or in minify mode. Reused parts are moved to
+   * their new lines, so the previous template must not be used once this
+   * method returns.
+   * Templates created here aren't cached.
+   *
+   * @param previous The previous version of the template. Optional.
+   * @param input The new input text. Required.
+   * @param start The start of the edited range in the new input.
+   * @param end The end (exclusive) of the edited range in the new input.
+   * @return A compiled template.
+   * @throws IOException If a partial cannot be loaded.
+   */
+  public Template reparse(final Template previous, final String input,
+      final int start, final int end) throws IOException {
+    checkArgument(start >= 0 && start <= end, "Invalid edit range: %s-%s",
+        start, end);
+    return IncrementalParser.parse(this, previous, input, start, end);
+  }
+
+  /**
+   * Return a canonical copy of a static text, so templates compiled by this
+   * object share identical text, like blanks, new lines or markup, instead of
+   * keeping one copy per node.
+   *
+   * @param text The static text. Required.
+   * @return A canonical copy of the text.
+   */
+  public String intern(final String text) {
+    checkNotNull(text, "The text is required.");
+    synchronized (textPool) {
+      WeakReference<String> reference = textPool.get(text);
+      String canonical = reference == null ? null : reference.get();
+      if (canonical == null) {
+        canonical = text;
+        textPool.put(canonical, new WeakReference<String>(canonical));
+      }
+      return canonical;
+    }
+  }
+
   /**
    * Find a helper by it's name.
    *
@@ -390,10 +793,216 @@ public class Handlebars {
       final Helper<H> helper) {
     checkNotNull(name, "A helper's name is required.");
     checkNotNull(helper, "A helper is required.");
-    helpers.put(name, (Helper<Object>) helper);
+    synchronized (this) {
+      Map<String, Helper<Object>> registry =
+          new HashMap<String, Helper<Object>>(helpers);
+      registry.put(name, (Helper<Object>) helper);
+      helpers = Collections.unmodifiableMap(registry);
+    }
     return this;
   }
 
+  /**
+   * A snapshot of the helper registry. The snapshot never changes: a new one
+   * is created every time a helper is registered, so a template can check
+   * if its helper bindings are still valid by comparing snapshots.
+   *
+   * @return A snapshot of the helper registry.
+   */
+  public Map<String, Helper<Object>> helpers() {
+    return helpers;
+  }
+
+  /**
+   * Register a formatter for the given type. Variables whose value is an
+   * instance of the type are written out with the formatter. The most specific
+   * formatter wins: the value's class and its super classes are checked first,
+   * then its interfaces.
+   *
+   * @param <T> The value type.
+   * @param type The value type. Required.
+   * @param formatter The formatter object. Required.
+   * @return This handlebars.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Handlebars registerFormatter(final Class<T> type,
+      final Formatter<? super T> formatter) {
+    checkNotNull(type, "A formatter's type is required.");
+    checkNotNull(formatter, "A formatter is required.");
+    synchronized (this) {
+      Map<Class<?>, Formatter<Object>> registry =
+          new HashMap<Class<?>, Formatter<Object>>(formatters);
+      registry.put(type, (Formatter<Object>) formatter);
+      formatters = Collections.unmodifiableMap(registry);
+      formatterCache = new ConcurrentHashMap<Class<?>, Formatter<Object>>();
+    }
+    return this;
+  }
+
+  /**
+   * Find the formatter for the given type.
+   *
+   * @param type The value type. Required.
+   * @return The most specific formatter or null if there isn't one.
+   */
+  public Formatter<Object> formatter(final Class<?> type) {
+    checkNotNull(type, "A formatter's type is required.");
+    // Read the cache first: a new cache is published after a new registry.
+    Map<Class<?>, Formatter<Object>> cache = formatterCache;
+    Map<Class<?>, Formatter<Object>> registry = formatters;
+    if (registry.isEmpty()) {
+      return null;
+    }
+    Formatter<Object> formatter = cache.get(type);
+    if (formatter == null) {
+      formatter = findFormatter(registry, type);
+      if (formatter == null) {
+        formatter = NO_FORMATTER;
+      }
+      cache.put(type, formatter);
+    }
+    return formatter == NO_FORMATTER ? null : formatter;
+  }
+
+  /**
+   * Look for a formatter in the type hierarchy.
+   *
+   * @param registry The formatter registry.
+   * @param type The value type.
+   * @return The most specific formatter or null if there isn't one.
+   */
+  private static Formatter<Object> findFormatter(
+      final Map<Class<?>, Formatter<Object>> registry, final Class<?> type) {
+    for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+      Formatter<Object> formatter = registry.get(clazz);
+      if (formatter != null) {
+        return formatter;
+      }
+    }
+    for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+      for (Class<?> ifc : clazz.getInterfaces()) {
+        Formatter<Object> formatter = findFormatter(registry, ifc);
+        if (formatter != null) {
+          return formatter;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Set the executor service used for rendering sections in parallel, like:
+   * <code>{{#each items parallel=true}}</code>. Parallel rendering is
+   * disabled if there is no executor.
+   *
+   * @param executor The executor service. Optional.
+   */
+  public void setExecutor(final ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * The executor service used for rendering sections in parallel.
+   *
+   * @return The executor service or null if parallel rendering is disabled.
+   */
+  public ExecutorService getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Set the cache used by the <code>cache</code> helper.
+   *
+   * @param fragmentCache The fragment cache. Required.
+   */
+  public void setFragmentCache(final FragmentCache fragmentCache) {
+    this.fragmentCache =
+        checkNotNull(fragmentCache, "The fragment cache is required.");
+  }
+
+  /**
+   * The cache used by the <code>cache</code> helper.
+   *
+   * @return The fragment cache.
+   */
+  public FragmentCache getFragmentCache() {
+    return fragmentCache;
+  }
+
+  /**
+   * Set the listener that times compilations, templates, partials and helpers.
+   * Timing is disabled if there is no listener.
+   *
+   * @param renderListener The render listener. Optional.
+   */
+  public void setRenderListener(final RenderListener renderListener) {
+    this.renderListener = renderListener;
+  }
+
+  /**
+   * The listener that times compilations, templates, partials and helpers.
+   *
+   * @return The render listener or null if timing is disabled.
+   */
+  public RenderListener getRenderListener() {
+    return renderListener;
+  }
+
+  /**
+   * If true, compiled templates are lowered into a linear instruction array
+   * and rendered by a loop instead of walking the template tree. Output is
+   * the same for both engines. Templates compiled (and cached) before the
+   * change aren't affected. Default is: false.
+   *
+   * @param flatten True, for lowering templates into instruction arrays.
+   */
+  public void setFlatten(final boolean flatten) {
+    this.flatten = flatten;
+  }
+
+  /**
+   * True, if templates are lowered into instruction arrays.
+   *
+   * @return True, if templates are lowered into instruction arrays.
+   */
+  public boolean isFlatten() {
+    return flatten;
+  }
+
+  /**
+   * If true, runs of blanks and new lines in the static text of compiled
+   * templates are collapsed into their first char, except inside
+   * <code>&lt;pre&gt;</code>, <code>&lt;textarea&gt;</code> and
+   * <code>&lt;script&gt;</code>. Useful for HTML output. Templates compiled
+   * (and cached) before the change aren't affected. The blanks around a
+   * section are collapsed with the helpers registered when the template is
+   * compiled. A helper registered later still renders the section, but it
+   * might need the blanks the minifier removed. Default is: false.
+   *
+   * @param minify True, for collapsing whitespace.
+   */
+  public void setMinify(final boolean minify) {
+    this.minify = minify;
+  }
+
+  /**
+   * True, if the whitespace of the static text is collapsed.
+   *
+   * @return True, if the whitespace of the static text is collapsed.
+   */
+  public boolean isMinify() {
+    return minify;
+  }
+
+  /**
+   * The template cache.
+   *
+   * @return The template cache.
+   */
+  public TemplateCache getTemplateCache() {
+    return cache;
+  }
+
   /**
    * The resource locator.
    *
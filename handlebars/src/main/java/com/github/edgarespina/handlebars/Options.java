@@ -216,6 +216,16 @@ public abstract class Options {
    */
   public abstract void partial(String path, Template partial);
 
+  /**
+   * Flush the output rendered so far, so the client can start processing it.
+   * Sections render their content into a buffer, so a flush inside a section
+   * has no effect. The default implementation does nothing.
+   *
+   * @throws IOException If the output cannot be flushed.
+   */
+  public void flush() throws IOException {
+  }
+
   /**
    * <p>
    * Find a value inside the {@link #hash} attributes. This is analogous to:
@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+/**
+ * A {@link Helper} whose output depends only on its context, parameters and
+ * hash. Calls with literal parameters and hash values only, like
+ * <code>{{format 3 "#.00"}}</code>, are applied once when the template is
+ * compiled and their output is saved as static text. The saved output is
+ * used while the helper stays registered; if another helper is registered
+ * with the same name, the call is made again at render time.
+ *
+ * @author edgar.espina
+ * @param <T> The context object.
+ * @since 0.2.2
+ */
+public interface PureHelper<T> extends Helper<T> {
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+/**
+ * Get notified about the time spent compiling and rendering templates,
+ * partials and helpers, for example, to feed a profiler or a metrics library.
+ * Times are inclusive: the time of a template includes the time of its
+ * partials and helpers, and parsing a template includes parsing its partials.
+ * A listener is registered with
+ * {@link Handlebars#setRenderListener(RenderListener)}; nothing is timed if
+ * there is no listener. Listeners must be thread-safe.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ * @see RenderStatistics
+ */
+public interface RenderListener {
+
+  /**
+   * A template was loaded and parsed by {@link Handlebars}, because it wasn't
+   * in the cache.
+   *
+   * @param filename The template's file name.
+   * @param nanos The compilation time, in nanoseconds.
+   */
+  void compile(String filename, long nanos);
+
+  /**
+   * A template was parsed. Partials are parsed with their template.
+   *
+   * @param filename The template's file name.
+   * @param length The number of characters parsed.
+   * @param nanos The parsing time, in nanoseconds.
+   */
+  void parse(String filename, int length, long nanos);
+
+  /**
+   * A template was rendered.
+   *
+   * @param filename The template's file name.
+   * @param size The number of characters written or -1 if the writer doesn't
+   *        say.
+   * @param nanos The rendering time, in nanoseconds.
+   */
+  void template(String filename, int size, long nanos);
+
+  /**
+   * A partial was rendered, like: <code>{{&gt; box}}</code>.
+   *
+   * @param path The partial's path.
+   * @param filename The file name of the template that includes the partial
+   *        first.
+   * @param line The line of the first include in that file.
+   * @param nanos The rendering time, in nanoseconds.
+   */
+  void partial(String path, String filename, int line, long nanos);
+
+  /**
+   * A helper was applied.
+   *
+   * @param name The helper's name.
+   * @param filename The file name of the template that calls the helper.
+   * @param line The line of the helper in that file.
+   * @param size The number of characters returned by the helper or -1 if they
+   *        aren't known yet, like for asynchronous helpers.
+   * @param nanos The rendering time, in nanoseconds.
+   */
+  void helper(String name, String filename, int line, int size, long nanos);
+}
@@ -0,0 +1,255 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link RenderListener} that keeps the number of calls, the total and the
+ * max time of every compilation, parse, template, partial and helper in
+ * memory:
+ *
+ * <pre>
+ * RenderStatistics statistics = new RenderStatistics();
+ * handlebars.setRenderListener(statistics);
+ * ...
+ * Timer timer = statistics.helpers().get("each");
+ * </pre>
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class RenderStatistics implements RenderListener {
+
+  /**
+   * The calls and times of a template, partial or helper.
+   *
+   * @author edgar.espina
+   * @since 0.2.2
+   */
+  public static class Timer {
+
+    /**
+     * The number of calls.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * The total time, in nanoseconds.
+     */
+    private final AtomicLong total = new AtomicLong();
+
+    /**
+     * The max time, in nanoseconds.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a call.
+     *
+     * @param nanos The call's time, in nanoseconds.
+     */
+    void record(final long nanos) {
+      count.incrementAndGet();
+      total.addAndGet(nanos);
+      long current = max.get();
+      while (nanos > current && !max.compareAndSet(current, nanos)) {
+        current = max.get();
+      }
+    }
+
+    /**
+     * The number of calls.
+     *
+     * @return The number of calls.
+     */
+    public long count() {
+      return count.get();
+    }
+
+    /**
+     * The total time, in nanoseconds.
+     *
+     * @return The total time, in nanoseconds.
+     */
+    public long total() {
+      return total.get();
+    }
+
+    /**
+     * The max time, in nanoseconds.
+     *
+     * @return The max time, in nanoseconds.
+     */
+    public long max() {
+      return max.get();
+    }
+
+    @Override
+    public String toString() {
+      return "count=" + count() + ", total=" + total() + "ns, max=" + max()
+          + "ns";
+    }
+  }
+
+  /**
+   * The compilation timers.
+   */
+  private final ConcurrentMap<String, Timer> compiles =
+      new ConcurrentHashMap<String, Timer>();
+
+  /**
+   * The parser timers.
+   */
+  private final ConcurrentMap<String, Timer> parses =
+      new ConcurrentHashMap<String, Timer>();
+
+  /**
+   * The template timers.
+   */
+  private final ConcurrentMap<String, Timer> templates =
+      new ConcurrentHashMap<String, Timer>();
+
+  /**
+   * The partial timers.
+   */
+  private final ConcurrentMap<String, Timer> partials =
+      new ConcurrentHashMap<String, Timer>();
+
+  /**
+   * The helper timers.
+   */
+  private final ConcurrentMap<String, Timer> helpers =
+      new ConcurrentHashMap<String, Timer>();
+
+  @Override
+  public void compile(final String filename, final long nanos) {
+    timer(compiles, filename).record(nanos);
+  }
+
+  @Override
+  public void parse(final String filename, final int length,
+      final long nanos) {
+    timer(parses, filename).record(nanos);
+  }
+
+  @Override
+  public void template(final String filename, final int size,
+      final long nanos) {
+    timer(templates, filename).record(nanos);
+  }
+
+  @Override
+  public void partial(final String path, final String filename,
+      final int line, final long nanos) {
+    timer(partials, path).record(nanos);
+  }
+
+  @Override
+  public void helper(final String name, final String filename,
+      final int line, final int size, final long nanos) {
+    timer(helpers, name).record(nanos);
+  }
+
+  /**
+   * The compilation timers, by file name.
+   *
+   * @return The compilation timers, by file name.
+   */
+  public Map<String, Timer> compiles() {
+    return Collections.unmodifiableMap(compiles);
+  }
+
+  /**
+   * The parser timers, by file name.
+   *
+   * @return The parser timers, by file name.
+   */
+  public Map<String, Timer> parses() {
+    return Collections.unmodifiableMap(parses);
+  }
+
+  /**
+   * The template timers, by file name.
+   *
+   * @return The template timers, by file name.
+   */
+  public Map<String, Timer> templates() {
+    return Collections.unmodifiableMap(templates);
+  }
+
+  /**
+   * The partial timers, by path.
+   *
+   * @return The partial timers, by path.
+   */
+  public Map<String, Timer> partials() {
+    return Collections.unmodifiableMap(partials);
+  }
+
+  /**
+   * The helper timers, by name.
+   *
+   * @return The helper timers, by name.
+   */
+  public Map<String, Timer> helpers() {
+    return Collections.unmodifiableMap(helpers);
+  }
+
+  /**
+   * Remove all the timers.
+   */
+  public void clear() {
+    compiles.clear();
+    parses.clear();
+    templates.clear();
+    partials.clear();
+    helpers.clear();
+  }
+
+  /**
+   * Find or creates a timer.
+   *
+   * @param timers The timers.
+   * @param name The timer's name.
+   * @return A timer.
+   */
+  private static Timer timer(final ConcurrentMap<String, Timer> timers,
+      final String name) {
+    String key = String.valueOf(name);
+    Timer timer = timers.get(key);
+    if (timer == null) {
+      Timer candidate = new Timer();
+      timer = timers.putIfAbsent(key, candidate);
+      if (timer == null) {
+        timer = candidate;
+      }
+    }
+    return timer;
+  }
+
+  @Override
+  public String toString() {
+    return "compiles: " + compiles + "\nparses: " + parses + "\ntemplates: "
+        + templates + "\npartials: " + partials + "\nhelpers: " + helpers;
+  }
+}
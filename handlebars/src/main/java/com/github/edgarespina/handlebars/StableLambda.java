@@ -0,0 +1,32 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+/**
+ * A {@link Lambda} whose output doesn't depend on the context nor on the
+ * template it's applied to. The template created from the first result is
+ * reused every time the same lambda is found in the same section or variable,
+ * so the lambda is called once instead of on every render.
+ *
+ * @author edgar.espina
+ * @param <C> The lambda context.
+ * @param <O> The lambda output.
+ * @since 0.2.2
+ */
+public interface StableLambda<C, O> extends Lambda<C, O> {
+}
@@ -19,9 +19,16 @@ package com.github.edgarespina.handlebars;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.concurrent.Future;
 
 /**
  * A compiled template created by {@link Handlebars#compile(String)}.
+ * <p>
+ * Templates are immutable and thread-safe: the same instance can be applied
+ * from many threads at once. Rendering doesn't take locks nor uses
+ * thread-locals, all the state lives in the {@link Context} of the current
+ * call, so it is safe to render from lightweight or pooled threads.
+ * </p>
  *
  * @author edgar.espina
  * @since 0.1.0
@@ -64,10 +71,62 @@ public interface Template {
    */
   CharSequence apply(Context context) throws IOException;
 
+  /**
+   * Merge the template tree using the given context without waiting for
+   * {@link Handlebars.FutureString} values. Pending values are written in
+   * template order by the thread that calls {@link Future#get()} on the
+   * result, so a template with many slow fragments costs the slowest fragment
+   * rather than their sum. The returned future is also a {@link Runnable} and
+   * can be submitted to an executor for writing the output in the background.
+   * Sections rendered by block helpers wait for their own fragments.
+   *
+   * @param context The context object. May be null.
+   * @param writer The writer object. Required.
+   * @return A future that writes the output and returns the writer.
+   * @throws IOException If a resource cannot be loaded.
+   */
+  Future<Writer> applyAsync(Object context, Writer writer)
+      throws IOException;
+
+  /**
+   * Bind the template to a model type. Variable paths are type-checked against
+   * the JavaBean properties of the model type, sections follow the property
+   * types (including the element type of arrays and generic collections) and
+   * partials are bound too. Once bound, paths that start in the model are
+   * read with direct getter calls; lookups fall back to the context stack if
+   * the model isn't of the bound type, the value is null or the path goes
+   * through a {@link java.util.Map}, an {@link Object} or a custom helper.
+   * Contexts with custom {@link ValueResolver}s don't use the direct getter
+   * calls, so they render the same as if the template wasn't bound.
+   * Values combined into the context aren't known at bind time, so a path
+   * that only resolves to them is reported as unknown.
+   * <p>
+   * Binding changes this template, which is usually cached and shared: bind
+   * it once, before it's published to other threads. A template is bound to
+   * one model type; binding it again to the same type does nothing.
+   * </p>
+   *
+   * @param modelType The model type. Required.
+   * @return This template.
+   * @throws HandlebarsException If a path doesn't exist in the model type.
+   * @throws IllegalStateException If the template is bound to another type.
+   */
+  Template bind(Class<?> modelType);
+
   /**
    * Provide the raw text.
    *
    * @return The raw text.
    */
   String text();
+
+  /**
+   * Estimate the memory retained by this template: its nodes, static text,
+   * params and hashes, plus the partials it includes. Objects shared between
+   * nodes are counted once. It walks the whole template, so it's better to
+   * call it once per template, like when the template is cached.
+   *
+   * @return The estimated memory retained by this template, in bytes.
+   */
+  long retainedSize();
 }
@@ -24,6 +24,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.Reader;
 import java.net.URI;
+import java.nio.charset.Charset;
 
 /**
  * Locate resource in a resource repository like: classpath, filesystem,
@@ -54,6 +55,11 @@ public abstract class TemplateLoader {
    */
   private String suffix = DEFAULT_SUFFIX;
 
+  /**
+   * The charset of the template files.
+   */
+  private Charset charset = Charset.defaultCharset();
+
   /**
    * Load the template from a template repository.
    *
@@ -133,6 +139,23 @@ public abstract class TemplateLoader {
     this.suffix = checkNotNull(suffix, "The view suffix is required.");
   }
 
+  /**
+   * Set the charset of the template files. Default is: the platform's
+   * charset.
+   *
+   * @param charset The charset of the template files. Required.
+   */
+  public void setCharset(final Charset charset) {
+    this.charset = checkNotNull(charset, "A charset is required.");
+  }
+
+  /**
+   * @return The charset of the template files.
+   */
+  public Charset getCharset() {
+    return charset;
+  }
+
   /**
    * @return The prefix that gets prepended to view names when building a URI.
    */
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.edgarespina.handlebars.Template;
+
+/**
+ * The counters behind {@link CacheStats}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+final class CacheCounters {
+
+  /**
+   * The number of lookups that found a template.
+   */
+  private final AtomicLong hits = new AtomicLong();
+
+  /**
+   * The number of lookups that didn't find a template.
+   */
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * The number of templates put in the cache.
+   */
+  private final AtomicLong loads = new AtomicLong();
+
+  /**
+   * The total time spent compiling templates, in nanoseconds.
+   */
+  private final AtomicLong totalLoadTime = new AtomicLong();
+
+  /**
+   * The max time spent compiling a template, in nanoseconds.
+   */
+  private final AtomicLong maxLoadTime = new AtomicLong();
+
+  /**
+   * Count a lookup.
+   *
+   * @param entry The entry found or null.
+   * @return The template found or null.
+   */
+  public Template lookup(final CacheEntry entry) {
+    if (entry == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return entry.access();
+  }
+
+  /**
+   * Count a template put in the cache.
+   */
+  public void load() {
+    loads.incrementAndGet();
+  }
+
+  /**
+   * Count the time spent compiling a template.
+   *
+   * @param nanos The compile time, in nanoseconds.
+   */
+  public void loadTime(final long nanos) {
+    totalLoadTime.addAndGet(nanos);
+    long max = maxLoadTime.get();
+    while (nanos > max && !maxLoadTime.compareAndSet(max, nanos)) {
+      max = maxLoadTime.get();
+    }
+  }
+
+  /**
+   * Creates a snapshot of the counters.
+   *
+   * @param entries The cached entries.
+   * @return A snapshot of the counters.
+   */
+  public CacheStats stats(final Iterable<CacheEntry> entries) {
+    int size = 0;
+    long retainedSize = 0;
+    for (CacheEntry entry : entries) {
+      size++;
+      retainedSize += entry.retainedSize;
+    }
+    return new CacheStats(hits.get(), misses.get(), loads.get(),
+        totalLoadTime.get(), maxLoadTime.get(), size, retainedSize);
+  }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.cache;
+
+import com.github.edgarespina.handlebars.Template;
+
+/**
+ * A cached template, with its retained size and last access time.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+final class CacheEntry {
+
+  /**
+   * The template.
+   */
+  final Template template;
+
+  /**
+   * The estimated memory retained by the template, in bytes.
+   */
+  final long retainedSize;
+
+  /**
+   * The last access time, in milliseconds.
+   */
+  private volatile long accessTime;
+
+  /**
+   * When the template was last used, as a tick of the cache's clock. Only set
+   * by caches that evict the least recently used templates.
+   */
+  volatile long used;
+
+  /**
+   * Creates a new {@link CacheEntry}.
+   *
+   * @param template The template.
+   */
+  public CacheEntry(final Template template) {
+    this.template = template;
+    this.retainedSize = template.retainedSize();
+    this.accessTime = System.currentTimeMillis();
+  }
+
+  /**
+   * Mark the entry as accessed.
+   *
+   * @return The template.
+   */
+  public Template access() {
+    long now = System.currentTimeMillis();
+    // Don't write the same value over and over.
+    if (accessTime != now) {
+      accessTime = now;
+    }
+    return template;
+  }
+
+  /**
+   * The last access time, in milliseconds.
+   *
+   * @return The last access time, in milliseconds.
+   */
+  public long accessTime() {
+    return accessTime;
+  }
+}
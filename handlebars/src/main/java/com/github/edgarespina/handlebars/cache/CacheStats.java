@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.cache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of the statistics of a {@link StatisticsCache}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public final class CacheStats {
+
+  /**
+   * The number of lookups that found a template.
+   */
+  private final long hits;
+
+  /**
+   * The number of lookups that didn't find a template.
+   */
+  private final long misses;
+
+  /**
+   * The number of templates put in the cache.
+   */
+  private final long loads;
+
+  /**
+   * The total time spent compiling templates, in nanoseconds.
+   */
+  private final long totalLoadTime;
+
+  /**
+   * The max time spent compiling a template, in nanoseconds.
+   */
+  private final long maxLoadTime;
+
+  /**
+   * The number of cached templates.
+   */
+  private final int size;
+
+  /**
+   * The estimated memory retained by the cached templates, in bytes.
+   */
+  private final long retainedSize;
+
+  /**
+   * Creates a new {@link CacheStats}.
+   *
+   * @param hits The number of lookups that found a template.
+   * @param misses The number of lookups that didn't find a template.
+   * @param loads The number of templates put in the cache.
+   * @param totalLoadTime The total time spent compiling templates, in
+   *        nanoseconds.
+   * @param maxLoadTime The max time spent compiling a template, in
+   *        nanoseconds.
+   * @param size The number of cached templates.
+   * @param retainedSize The estimated memory retained by the cached templates,
+   *        in bytes.
+   */
+  public CacheStats(final long hits, final long misses, final long loads,
+      final long totalLoadTime, final long maxLoadTime, final int size,
+      final long retainedSize) {
+    this.hits = hits;
+    this.misses = misses;
+    this.loads = loads;
+    this.totalLoadTime = totalLoadTime;
+    this.maxLoadTime = maxLoadTime;
+    this.size = size;
+    this.retainedSize = retainedSize;
+  }
+
+  /**
+   * The number of lookups that found a template.
+   *
+   * @return The number of lookups that found a template.
+   */
+  public long hits() {
+    return hits;
+  }
+
+  /**
+   * The number of lookups that didn't find a template.
+   *
+   * @return The number of lookups that didn't find a template.
+   */
+  public long misses() {
+    return misses;
+  }
+
+  /**
+   * The ratio of lookups that found a template, or 1 if there were no
+   * lookups.
+   *
+   * @return The ratio of lookups that found a template.
+   */
+  public double hitRate() {
+    long lookups = hits + misses;
+    return lookups == 0 ? 1.0 : (double) hits / lookups;
+  }
+
+  /**
+   * The number of templates put in the cache.
+   *
+   * @return The number of templates put in the cache.
+   */
+  public long loads() {
+    return loads;
+  }
+
+  /**
+   * The total time spent compiling templates.
+   *
+   * @param unit The time unit. Required.
+   * @return The total time spent compiling templates.
+   */
+  public long totalLoadTime(final TimeUnit unit) {
+    return unit.convert(totalLoadTime, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * The max time spent compiling a template.
+   *
+   * @param unit The time unit. Required.
+   * @return The max time spent compiling a template.
+   */
+  public long maxLoadTime(final TimeUnit unit) {
+    return unit.convert(maxLoadTime, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * The number of cached templates.
+   *
+   * @return The number of cached templates.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * The estimated memory retained by the cached templates, in bytes.
+   *
+   * @return The estimated memory retained by the cached templates, in bytes.
+   */
+  public long retainedSize() {
+    return retainedSize;
+  }
+
+  @Override
+  public String toString() {
+    return "hits=" + hits + ", misses=" + misses + ", loads=" + loads
+        + ", totalLoadTime=" + totalLoadTime + "ns, maxLoadTime="
+        + maxLoadTime + "ns, size=" + size + ", retainedSize="
+        + retainedSize;
+  }
+}
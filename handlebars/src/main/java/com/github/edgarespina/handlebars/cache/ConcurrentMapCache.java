@@ -17,6 +17,8 @@
  */
 package com.github.edgarespina.handlebars.cache;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -24,23 +26,24 @@ import com.github.edgarespina.handlebars.Template;
 import com.github.edgarespina.handlebars.TemplateCache;
 
 /**
- * A {@link TemplateCache} based on a {@link ConcurrentMap}.
+ * A {@link TemplateCache} based on a {@link ConcurrentMap}. It keeps
+ * {@link #stats() statistics} and the last access time of every template.
  *
  * @author edgar.espina
  * @since 0.1.0
  */
-public class ConcurrentMapCache implements TemplateCache {
+public class ConcurrentMapCache implements StatisticsCache {
 
   /**
-   * NULL object.
+   * The object storage.
    */
-  private static final Object NULL = new Object();
+  private final ConcurrentMap<Object, CacheEntry> store =
+      new ConcurrentHashMap<Object, CacheEntry>();
 
   /**
-   * The object storage.
+   * The cache statistics.
    */
-  private final ConcurrentMap<Object, Template> store =
-      new ConcurrentHashMap<Object, Template>();
+  private final CacheCounters counters = new CacheCounters();
 
   @Override
   public void clear() {
@@ -54,13 +57,33 @@ public class ConcurrentMapCache implements TemplateCache {
 
   @Override
   public Template get(final Object key) {
-    Template value = this.store.get(key);
-    return value == NULL ? null : value;
+    return counters.lookup(store.get(key));
   }
 
   @Override
   public void put(final Object key, final Template template) {
-    store.put(key, template);
+    store.put(key, new CacheEntry(template));
+    counters.load();
+  }
+
+  @Override
+  public void put(final Object key, final Template template,
+      final long nanos) {
+    put(key, template);
+    counters.loadTime(nanos);
   }
 
+  @Override
+  public CacheStats stats() {
+    return counters.stats(store.values());
+  }
+
+  @Override
+  public Map<Object, Long> accessTimes() {
+    Map<Object, Long> accessTimes = new LinkedHashMap<Object, Long>();
+    for (Map.Entry<Object, CacheEntry> entry : store.entrySet()) {
+      accessTimes.put(entry.getKey(), entry.getValue().accessTime());
+    }
+    return accessTimes;
+  }
 }
@@ -0,0 +1,370 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.cache;
+
+import static org.parboiled.common.Preconditions.checkArgument;
+import static org.parboiled.common.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.edgarespina.handlebars.Context;
+import com.github.edgarespina.handlebars.HandlebarsException;
+import com.github.edgarespina.handlebars.Template;
+
+/**
+ * A bounded cache of rendered fragments, like: headers, footers or
+ * navigation menus that render the same output for many requests. Fragments
+ * can expire. Once the cache is full, expired fragments are evicted first,
+ * then the least recently used. Lookups don't take locks, so eviction is
+ * approximate: a busy cache can go over its max size for a moment.
+ * <p>
+ * A fragment is rendered once even if many threads ask for it at the same
+ * time: the first one renders it while the others wait for the output. Failed
+ * renders aren't cached. A fragment that asks for itself while it's rendered,
+ * like a recursive partial does, is rendered again without the cache.
+ * </p>
+ * <p>
+ * Templates can use the <code>cache</code> helper:
+ * </p>
+ *
+ * <pre>
+ * {{#cache key=user.id ttl=60}}
+ *   ...
+ * {{/cache}}
+ * </pre>
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class FragmentCache {
+
+  /**
+   * A cached fragment.
+   *
+   * @author edgar.espina
+   * @since 0.2.2
+   */
+  private static final class Entry {
+
+    /**
+     * The rendering task.
+     */
+    private final FutureTask<CharSequence> task;
+
+    /**
+     * When the fragment expires, in nanos.
+     */
+    private final long expires;
+
+    /**
+     * True if the fragment never expires.
+     */
+    private final boolean eternal;
+
+    /**
+     * When the fragment was last used, as a tick of the cache's clock.
+     */
+    private volatile long used;
+
+    /**
+     * The thread rendering the fragment or null once it's done.
+     */
+    private volatile Thread thread = Thread.currentThread();
+
+    /**
+     * Creates a new {@link Entry}.
+     *
+     * @param task The rendering task.
+     * @param expires When the fragment expires, in nanos.
+     * @param eternal True if the fragment never expires.
+     */
+    public Entry(final FutureTask<CharSequence> task, final long expires,
+        final boolean eternal) {
+      this.task = task;
+      this.expires = expires;
+      this.eternal = eternal;
+    }
+
+    /**
+     * True if the fragment expired.
+     *
+     * @param now The current time, in nanos.
+     * @return True if the fragment expired.
+     */
+    public boolean expired(final long now) {
+      return !eternal && now - expires >= 0;
+    }
+  }
+
+  /**
+   * The default max number of fragments.
+   */
+  public static final int DEFAULT_SIZE = 1024;
+
+  /**
+   * The fragments.
+   */
+  private final ConcurrentMap<Object, Entry> entries =
+      new ConcurrentHashMap<Object, Entry>();
+
+  /**
+   * The max number of fragments.
+   */
+  private final int maxSize;
+
+  /**
+   * The number of fragments, kept apart because the size of a concurrent map
+   * isn't cheap.
+   */
+  private final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * The clock of the last use of a fragment.
+   */
+  private final AtomicLong clock = new AtomicLong();
+
+  /**
+   * The number of hits.
+   */
+  private final AtomicLong hits = new AtomicLong();
+
+  /**
+   * The number of misses.
+   */
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Creates a new {@link FragmentCache}.
+   *
+   * @param maxSize The max number of fragments.
+   */
+  public FragmentCache(final int maxSize) {
+    checkArgument(maxSize > 0, "The max size must be positive.");
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Creates a new {@link FragmentCache} with {@link #DEFAULT_SIZE} fragments.
+   */
+  public FragmentCache() {
+    this(DEFAULT_SIZE);
+  }
+
+  /**
+   * Find or render a fragment.
+   *
+   * @param key The fragment's key. Required.
+   * @param ttl How long the fragment is valid. Zero or less means: until it's
+   *        evicted.
+   * @param unit The ttl's unit. Required.
+   * @param renderer Render the fragment. Required.
+   * @return The fragment.
+   * @throws IOException If the fragment cannot be rendered.
+   */
+  public CharSequence get(final Object key, final long ttl,
+      final TimeUnit unit, final Callable<CharSequence> renderer)
+      throws IOException {
+    checkNotNull(key, "The key is required.");
+    checkNotNull(unit, "The time unit is required.");
+    checkNotNull(renderer, "The renderer is required.");
+    long now = System.nanoTime();
+    Entry entry = entries.get(key);
+    boolean owner = false;
+    while (!owner && (entry == null || entry.expired(now))) {
+      Entry fresh = new Entry(new FutureTask<CharSequence>(renderer),
+          now + unit.toNanos(ttl), ttl <= 0);
+      if (entry == null) {
+        entry = entries.putIfAbsent(key, fresh);
+        if (entry == null) {
+          size.incrementAndGet();
+          owner = true;
+        }
+      } else if (entries.replace(key, entry, fresh)) {
+        owner = true;
+      } else {
+        entry = entries.get(key);
+      }
+      if (owner) {
+        entry = fresh;
+      }
+    }
+    entry.used = clock.incrementAndGet();
+    if (owner) {
+      misses.incrementAndGet();
+      if (size.get() > maxSize) {
+        evictEldest(now);
+      }
+      try {
+        entry.task.run();
+      } finally {
+        entry.thread = null;
+      }
+    } else if (entry.thread == Thread.currentThread()) {
+      // Re-entry: waiting for our own task never ends.
+      misses.incrementAndGet();
+      try {
+        return renderer.call();
+      } catch (Exception ex) {
+        throw rethrow(ex);
+      }
+    } else {
+      hits.incrementAndGet();
+    }
+    try {
+      return entry.task.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(ex.getMessage());
+    } catch (ExecutionException ex) {
+      if (entries.remove(key, entry)) {
+        size.decrementAndGet();
+      }
+      throw rethrow(ex.getCause());
+    }
+  }
+
+  /**
+   * Rethrow the failure of a renderer.
+   *
+   * @param cause The failure.
+   * @return Never returns, it's here for the compiler.
+   * @throws IOException If the renderer failed with an I/O error.
+   */
+  private static RuntimeException rethrow(final Throwable cause)
+      throws IOException {
+    if (cause instanceof IOException) {
+      throw (IOException) cause;
+    }
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    throw new HandlebarsException((Exception) cause);
+  }
+
+  /**
+   * Find or render a template.
+   *
+   * @param key The fragment's key. Required.
+   * @param ttl How long the fragment is valid. Zero or less means: until it's
+   *        evicted.
+   * @param unit The ttl's unit. Required.
+   * @param template The template. Required.
+   * @param context The template's context.
+   * @return The fragment.
+   * @throws IOException If the fragment cannot be rendered.
+   */
+  public CharSequence apply(final Object key, final long ttl,
+      final TimeUnit unit, final Template template, final Context context)
+      throws IOException {
+    checkNotNull(template, "The template is required.");
+    return get(key, ttl, unit, new Callable<CharSequence>() {
+      @Override
+      public CharSequence call() throws IOException {
+        return template.apply(context);
+      }
+    });
+  }
+
+  /**
+   * Remove a fragment.
+   *
+   * @param key The fragment's key.
+   */
+  public void evict(final Object key) {
+    if (entries.remove(key) != null) {
+      size.decrementAndGet();
+    }
+  }
+
+  /**
+   * Remove the expired fragments, or the least recently used one, until the
+   * cache fits its max size.
+   *
+   * @param now The current time, in nanos.
+   */
+  private void evictEldest(final long now) {
+    while (size.get() > maxSize) {
+      Map.Entry<Object, Entry> eldest = null;
+      for (Map.Entry<Object, Entry> candidate : entries.entrySet()) {
+        Entry entry = candidate.getValue();
+        if (entry.expired(now)) {
+          eldest = candidate;
+          break;
+        }
+        if (eldest == null || entry.used - eldest.getValue().used < 0) {
+          eldest = candidate;
+        }
+      }
+      if (eldest == null) {
+        return;
+      }
+      if (entries.remove(eldest.getKey(), eldest.getValue())) {
+        size.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Remove all the fragments.
+   */
+  public void clear() {
+    for (Object key : entries.keySet()) {
+      evict(key);
+    }
+  }
+
+  /**
+   * The number of fragments.
+   *
+   * @return The number of fragments.
+   */
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * The number of fragments found in the cache.
+   *
+   * @return The number of fragments found in the cache.
+   */
+  public long hits() {
+    return hits.get();
+  }
+
+  /**
+   * The number of fragments rendered because they weren't in the cache.
+   *
+   * @return The number of fragments rendered.
+   */
+  public long misses() {
+    return misses.get();
+  }
+}
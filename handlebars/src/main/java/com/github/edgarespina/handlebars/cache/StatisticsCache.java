@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.cache;
+
+import java.util.Map;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.Template;
+import com.github.edgarespina.handlebars.TemplateCache;
+
+/**
+ * A {@link TemplateCache} that keeps statistics about its usage. The
+ * {@link Handlebars} object reports the time spent compiling the templates it
+ * puts in the cache.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public interface StatisticsCache extends TemplateCache {
+
+  /**
+   * Associate the specified template with the specified key in this cache and
+   * record the time spent compiling it.
+   *
+   * @param key The key with which the template is to be associated.
+   * @param template The template to be associated with the key.
+   * @param nanos The time spent compiling the template, in nanoseconds.
+   */
+  void put(Object key, Template template, long nanos);
+
+  /**
+   * A snapshot of the cache statistics.
+   *
+   * @return A snapshot of the cache statistics.
+   */
+  CacheStats stats();
+
+  /**
+   * The cached keys, with the last time they were accessed, in milliseconds
+   * since the epoch.
+   *
+   * @return The cached keys, with the last time they were accessed.
+   */
+  Map<Object, Long> accessTimes();
+}
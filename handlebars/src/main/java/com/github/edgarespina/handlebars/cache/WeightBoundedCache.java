@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.cache;
+
+import static org.parboiled.common.Preconditions.checkArgument;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.edgarespina.handlebars.Template;
+import com.github.edgarespina.handlebars.TemplateCache;
+
+/**
+ * A {@link TemplateCache} bounded by the memory retained by its templates, as
+ * estimated by {@link Template#retainedSize()}. The least recently used
+ * templates are evicted once the max weight is exceeded; the newest template
+ * is always kept, even if it's heavier than the max weight. Lookups don't
+ * lock: eviction happens on put and, under contention, the least recently
+ * used template is an approximation.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class WeightBoundedCache implements StatisticsCache {
+
+  /**
+   * The templates.
+   */
+  private final ConcurrentMap<Object, CacheEntry> store =
+      new ConcurrentHashMap<Object, CacheEntry>();
+
+  /**
+   * The max weight, in bytes.
+   */
+  private final long maxWeight;
+
+  /**
+   * The current weight, in bytes.
+   */
+  private final AtomicLong weight = new AtomicLong();
+
+  /**
+   * The clock of the last use of a template.
+   */
+  private final AtomicLong clock = new AtomicLong();
+
+  /**
+   * The cache statistics.
+   */
+  private final CacheCounters counters = new CacheCounters();
+
+  /**
+   * Creates a new {@link WeightBoundedCache}.
+   *
+   * @param maxWeight The max weight, in bytes.
+   */
+  public WeightBoundedCache(final long maxWeight) {
+    checkArgument(maxWeight > 0, "The max weight must be positive.");
+    this.maxWeight = maxWeight;
+  }
+
+  @Override
+  public void clear() {
+    for (Object key : store.keySet()) {
+      evict(key);
+    }
+  }
+
+  @Override
+  public void evict(final Object key) {
+    CacheEntry entry = store.remove(key);
+    if (entry != null) {
+      weight.addAndGet(-entry.retainedSize);
+    }
+  }
+
+  @Override
+  public Template get(final Object key) {
+    CacheEntry entry = store.get(key);
+    if (entry != null) {
+      entry.used = clock.incrementAndGet();
+    }
+    return counters.lookup(entry);
+  }
+
+  @Override
+  public void put(final Object key, final Template template) {
+    CacheEntry entry = new CacheEntry(template);
+    entry.used = clock.incrementAndGet();
+    CacheEntry previous = store.put(key, entry);
+    long delta = entry.retainedSize;
+    if (previous != null) {
+      delta -= previous.retainedSize;
+    }
+    weight.addAndGet(delta);
+    evictEldest(entry);
+    counters.load();
+  }
+
+  /**
+   * Remove the least recently used templates until the cache fits its max
+   * weight.
+   *
+   * @param newest The template just put, it's never evicted.
+   */
+  private void evictEldest(final CacheEntry newest) {
+    while (weight.get() > maxWeight) {
+      Map.Entry<Object, CacheEntry> eldest = null;
+      for (Map.Entry<Object, CacheEntry> candidate : store.entrySet()) {
+        CacheEntry entry = candidate.getValue();
+        if (entry != newest && (eldest == null
+            || entry.used - eldest.getValue().used < 0)) {
+          eldest = candidate;
+        }
+      }
+      if (eldest == null) {
+        return;
+      }
+      if (store.remove(eldest.getKey(), eldest.getValue())) {
+        weight.addAndGet(-eldest.getValue().retainedSize);
+      }
+    }
+  }
+
+  @Override
+  public void put(final Object key, final Template template,
+      final long nanos) {
+    put(key, template);
+    counters.loadTime(nanos);
+  }
+
+  @Override
+  public CacheStats stats() {
+    return counters.stats(store.values());
+  }
+
+  @Override
+  public Map<Object, Long> accessTimes() {
+    Map<Object, Long> accessTimes = new LinkedHashMap<Object, Long>();
+    for (Map.Entry<Object, CacheEntry> entry : store.entrySet()) {
+      accessTimes.put(entry.getKey(), entry.getValue().accessTime());
+    }
+    return accessTimes;
+  }
+
+  /**
+   * The current weight, in bytes.
+   *
+   * @return The current weight, in bytes.
+   */
+  public long weight() {
+    return weight.get();
+  }
+
+  /**
+   * The max weight, in bytes.
+   *
+   * @return The max weight, in bytes.
+   */
+  public long maxWeight() {
+    return maxWeight;
+  }
+}
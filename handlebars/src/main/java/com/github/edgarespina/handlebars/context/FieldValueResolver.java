@@ -54,16 +54,11 @@ public class FieldValueResolver extends MemberValueResolver<Field> {
 
   @Override
   protected Field findMember(final Class<?> clazz, final String name) {
-    Class<?> targetClass = clazz;
-    do {
-      Field[] fields = targetClass.getDeclaredFields();
-      for (Field field : fields) {
-        if (matches(field, name)) {
-          return field;
-        }
+    for (Field field : Members.fields(clazz)) {
+      if (matches(field, name)) {
+        return field;
       }
-      targetClass = targetClass.getSuperclass();
-    } while (targetClass != null && targetClass != Object.class);
+    }
     return null;
   }
 
@@ -37,22 +37,26 @@ public class JavaBeanValueResolver extends MethodValueResolver {
   @Override
   public boolean matches(final Method method, final String name) {
     return !isStatic(method) && isPublic(method)
-        && (method.getName().equals(javaBeanMethod("get", name))
-        || method.getName().equals(javaBeanMethod("is", name)));
+        && method.getParameterTypes().length == 0
+        && (javaBeanMethod(method.getName(), "get", name)
+        || javaBeanMethod(method.getName(), "is", name));
   }
 
   /**
-   * Convert the property's name to a JavaBean read method name.
+   * True if the method is the JavaBean read method of the property.
    *
+   * @param method The method's name.
    * @param prefix The prefix: 'get' or 'is'.
    * @param name The unqualified property name.
-   * @return The javaBean method name.
+   * @return True if the method is the JavaBean read method of the property.
    */
-  private static String javaBeanMethod(final String prefix,
-      final String name) {
-    StringBuilder buffer = new StringBuilder(prefix);
-    buffer.append(name);
-    buffer.setCharAt(prefix.length(), Character.toUpperCase(name.charAt(0)));
-    return buffer.toString();
+  private static boolean javaBeanMethod(final String method,
+      final String prefix, final String name) {
+    int start = prefix.length();
+    return name.length() > 0
+        && method.length() == start + name.length()
+        && method.startsWith(prefix)
+        && method.charAt(start) == Character.toUpperCase(name.charAt(0))
+        && method.regionMatches(start + 1, name, 1, name.length() - 1);
   }
 }
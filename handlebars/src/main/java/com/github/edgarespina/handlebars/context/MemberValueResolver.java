@@ -20,14 +20,16 @@ package com.github.edgarespina.handlebars.context;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Member;
 import java.lang.reflect.Modifier;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.github.edgarespina.handlebars.ValueResolver;
 
 /**
  * A specialization of {@link ValueResolver} that is built on top of reflections
- * API. It use an internal cache for saving {@link Member members}.
+ * API. The {@link Member members} found by {@link #findMember(Class, String)}
+ * are cached per class and attribute, misses included. The members of a class
+ * are introspected once and shared by all the reflective resolvers.
  *
  * @author edgar.espina
  * @param <M> The member type.
@@ -37,29 +39,72 @@ public abstract class MemberValueResolver<M extends Member>
     implements ValueResolver {
 
   /**
-   * A concurrent and thread-safe cache for {@link Member}.
+   * Marks an attribute without member.
    */
-  private final Map<String, M> cache =
-      new ConcurrentHashMap<String, M>();
+  private static final Object MISSING = new Object();
+
+  /**
+   * A concurrent and thread-safe cache of members, per class and attribute.
+   */
+  private final ConcurrentMap<Class<?>, ConcurrentMap<String, Object>> cache =
+      new ConcurrentHashMap<Class<?>, ConcurrentMap<String, Object>>();
 
   @Override
   public final Object resolve(final Object context, final String name) {
-    String key = key(context, name);
-    M member = cache.get(key);
+    M member = member(context.getClass(), name);
     if (member == null) {
-      member = findMember(context.getClass(), name);
+      // No luck, move to the next value resolver.
+      return UNRESOLVED;
+    }
+    return invokeMember(member, context);
+  }
+
+  /**
+   * Find the member that resolves the given attribute in a class. The result
+   * of {@link #findMember(Class, String)} is cached.
+   *
+   * @param clazz The class to look at. Required.
+   * @param name The attribute's name. Required.
+   * @return The member or null if the attribute can't be resolved.
+   */
+  @SuppressWarnings("unchecked")
+  public final M member(final Class<?> clazz, final String name) {
+    ConcurrentMap<String, Object> members = cache.get(clazz);
+    if (members == null) {
+      members = new ConcurrentHashMap<String, Object>();
+      ConcurrentMap<String, Object> existing =
+          cache.putIfAbsent(clazz, members);
+      if (existing != null) {
+        members = existing;
+      }
+    }
+    Object member = members.get(name);
+    if (member == null) {
+      member = findMember(clazz, name);
       if (member == null) {
-        // No luck, move to the next value resolver.
-        return UNRESOLVED;
+        member = MISSING;
+      } else {
+        accessible((Member) member);
       }
-      // Mark as accessible.
-      if (member instanceof AccessibleObject) {
+      members.put(name, member);
+    }
+    return member == MISSING ? null : (M) member;
+  }
+
+  /**
+   * Mark the member as accessible, if possible. A public member of a public
+   * class doesn't need it, so a failure here isn't fatal.
+   *
+   * @param member The class member.
+   */
+  private static void accessible(final Member member) {
+    if (member instanceof AccessibleObject) {
+      try {
         ((AccessibleObject) member).setAccessible(true);
+      } catch (RuntimeException ex) {
+        // Not allowed, the member will be invoked as is.
       }
-
-      cache.put(key, member);
     }
-    return invokeMember(member, context);
   }
 
   /**
@@ -129,15 +174,4 @@ public abstract class MemberValueResolver<M extends Member>
     return Modifier.isStatic(member.getModifiers());
   }
 
-  /**
-   * Creates a key using the context and the attribute's name.
-   *
-   * @param context The context object.
-   * @param name The attribute's name.
-   * @return A unique key from the given parameters.
-   */
-  private String key(final Object context, final String name) {
-    return context.getClass().getName() + "#" + name;
-  }
-
 }
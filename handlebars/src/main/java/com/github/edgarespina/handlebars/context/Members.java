@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.context;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The members of a class, in lookup order. Classes are introspected once and
+ * the result is shared by all the value resolvers built on top of
+ * reflection.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+final class Members {
+
+  /**
+   * The methods of each class.
+   */
+  private static final Map<Class<?>, Method[]> METHODS =
+      new ConcurrentHashMap<Class<?>, Method[]>();
+
+  /**
+   * The fields of each class.
+   */
+  private static final Map<Class<?>, Field[]> FIELDS =
+      new ConcurrentHashMap<Class<?>, Field[]>();
+
+  /**
+   * Not allowed.
+   */
+  private Members() {
+  }
+
+  /**
+   * The declared methods of the class and its super classes, then the
+   * methods of all its interfaces.
+   *
+   * @param clazz The class.
+   * @return The methods. Don't modify them.
+   */
+  public static Method[] methods(final Class<?> clazz) {
+    Method[] methods = METHODS.get(clazz);
+    if (methods == null) {
+      Set<Method> members = new LinkedHashSet<Method>();
+      Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+      // Keep backing up the inheritance hierarchy.
+      Class<?> targetClass = clazz;
+      while (targetClass != null) {
+        Collections.addAll(members, targetClass.getDeclaredMethods());
+        interfaces(targetClass, interfaces);
+        targetClass = targetClass.getSuperclass();
+      }
+      // Then all the interfaces, not just the first one.
+      for (Class<?> ifc : interfaces) {
+        Collections.addAll(members, ifc.getDeclaredMethods());
+      }
+      methods = members.toArray(new Method[members.size()]);
+      METHODS.put(clazz, methods);
+    }
+    return methods;
+  }
+
+  /**
+   * The declared fields of the class and its super classes.
+   *
+   * @param clazz The class.
+   * @return The fields. Don't modify them.
+   */
+  public static Field[] fields(final Class<?> clazz) {
+    Field[] fields = FIELDS.get(clazz);
+    if (fields == null) {
+      List<Field> members = new ArrayList<Field>();
+      Class<?> targetClass = clazz;
+      while (targetClass != null && targetClass != Object.class) {
+        Collections.addAll(members, targetClass.getDeclaredFields());
+        targetClass = targetClass.getSuperclass();
+      }
+      fields = members.toArray(new Field[members.size()]);
+      FIELDS.put(clazz, fields);
+    }
+    return fields;
+  }
+
+  /**
+   * Collect all the interfaces of the given class.
+   *
+   * @param clazz The class or interface.
+   * @param interfaces The interfaces found so far.
+   */
+  private static void interfaces(final Class<?> clazz,
+      final Set<Class<?>> interfaces) {
+    for (Class<?> ifc : clazz.getInterfaces()) {
+      if (interfaces.add(ifc)) {
+        interfaces(ifc, interfaces);
+      }
+    }
+  }
+}
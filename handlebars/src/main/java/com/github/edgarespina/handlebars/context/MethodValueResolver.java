@@ -54,20 +54,12 @@ public class MethodValueResolver extends MemberValueResolver<Method> {
 
   @Override
   protected Method findMember(final Class<?> clazz, final String name) {
-    // Keep backing up the inheritance hierarchy.
-    Method[] methods = clazz.getDeclaredMethods();
-    for (Method method : methods) {
+    // The class hierarchy first, then all the interfaces.
+    for (Method method : Members.methods(clazz)) {
       if (matches(method, name)) {
         return method;
       }
     }
-    if (clazz.getSuperclass() != null) {
-      return findMember(clazz.getSuperclass(), name);
-    } else if (clazz.isInterface()) {
-      for (Class<?> superIfc : clazz.getInterfaces()) {
-        return findMember(superIfc, name);
-      }
-    }
     return null;
   }
 
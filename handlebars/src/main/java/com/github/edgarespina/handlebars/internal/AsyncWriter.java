@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.github.edgarespina.handlebars.Handlebars.FutureString;
+
+/**
+ * A writer that keeps {@link FutureString} as pending segments, so the
+ * rendering doesn't wait for them. The content is written later in the
+ * original order.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+class AsyncWriter extends Writer {
+
+  /**
+   * The output segments: text or {@link FutureString}.
+   */
+  private final List<CharSequence> segments = new ArrayList<CharSequence>();
+
+  /**
+   * The current text segment.
+   */
+  private StringBuilder buffer = new StringBuilder();
+
+  @Override
+  public Writer append(final CharSequence csq) throws IOException {
+    if (csq instanceof FutureString) {
+      if (buffer.length() > 0) {
+        segments.add(buffer);
+        buffer = new StringBuilder();
+      }
+      segments.add(csq);
+    } else {
+      buffer.append(csq);
+    }
+    return this;
+  }
+
+  @Override
+  public Writer append(final CharSequence csq, final int start,
+      final int end) throws IOException {
+    buffer.append(csq, start, end);
+    return this;
+  }
+
+  @Override
+  public void write(final int c) throws IOException {
+    buffer.append((char) c);
+  }
+
+  @Override
+  public void write(final String str) throws IOException {
+    buffer.append(str);
+  }
+
+  @Override
+  public void write(final String str, final int off, final int len)
+      throws IOException {
+    buffer.append(str, off, off + len);
+  }
+
+  @Override
+  public void write(final char[] cbuf, final int off, final int len)
+      throws IOException {
+    buffer.append(cbuf, off, len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+  }
+
+  @Override
+  public void close() throws IOException {
+  }
+
+  /**
+   * Creates a future that writes all the segments to the given writer. The
+   * segments are written by the first thread calling {@link Future#get()} or
+   * {@link Runnable#run()}.
+   *
+   * @param writer The target writer.
+   * @return A future that writes all the segments to the given writer.
+   */
+  public Future<Writer> drainTo(final Writer writer) {
+    if (buffer.length() > 0) {
+      segments.add(buffer);
+      buffer = new StringBuilder();
+    }
+    return new FutureTask<Writer>(new Callable<Writer>() {
+      @Override
+      public Writer call() throws IOException {
+        for (CharSequence segment : segments) {
+          writer.write(segment.toString());
+        }
+        segments.clear();
+        return writer;
+      }
+    }) {
+      @Override
+      public Writer get() throws InterruptedException, ExecutionException {
+        run();
+        return super.get();
+      }
+
+      @Override
+      public Writer get(final long timeout, final TimeUnit unit)
+          throws InterruptedException, ExecutionException, TimeoutException {
+        run();
+        return super.get(timeout, unit);
+      }
+    };
+  }
+}
@@ -21,9 +21,14 @@ import static org.parboiled.common.Preconditions.checkNotNull;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Future;
 
 import com.github.edgarespina.handlebars.Context;
+import com.github.edgarespina.handlebars.Handlebars;
 import com.github.edgarespina.handlebars.HandlebarsException;
+import com.github.edgarespina.handlebars.RenderListener;
 import com.github.edgarespina.handlebars.Template;
 
 /**
@@ -35,19 +40,33 @@ import com.github.edgarespina.handlebars.Template;
 abstract class BaseTemplate implements Template {
 
   /**
-   * The line of this template.
+   * Positions with a column and line lower than these limits are packed in
+   * {@link #position}; others are saved in the {@link SourceFile}.
    */
-  protected int line;
+  private static final int COLUMN_BITS = 12;
 
   /**
-   * The column of this template.
+   * The max line that can be packed in {@link #position}.
    */
-  protected int column;
+  private static final int MAX_LINE = Integer.MAX_VALUE >> COLUMN_BITS;
 
   /**
-   * The file's name.
+   * The column mask of {@link #position}.
    */
-  protected String filename;
+  private static final int COLUMN_MASK = (1 << COLUMN_BITS) - 1;
+
+  /**
+   * The file this template belongs to: its name, root and the positions that
+   * don't fit in a node. Shared by all the nodes of the file. Optional.
+   */
+  private SourceFile file;
+
+  /**
+   * The line and column of this template, packed as
+   * <code>line &lt;&lt; 12 | column</code>, or the negated index + 1 of the
+   * position in the {@link SourceFile}.
+   */
+  private int position;
 
   /**
    * Remove the child template.
@@ -74,6 +93,15 @@ abstract class BaseTemplate implements Template {
     apply(wrap(context), writer);
   }
 
+  @Override
+  public Future<Writer> applyAsync(final Object context, final Writer writer)
+      throws IOException {
+    checkNotNull(writer, "A writer is required.");
+    AsyncWriter buffer = new AsyncWriter();
+    apply(wrap(context), buffer);
+    return buffer.drainTo(writer);
+  }
+
   @Override
   public CharSequence apply(final Context context) throws IOException {
     FastStringWriter writer = new FastStringWriter();
@@ -85,19 +113,133 @@ abstract class BaseTemplate implements Template {
   public void apply(final Context context, final Writer writer)
       throws IOException {
     checkNotNull(writer, "A writer is required.");
+    Handlebars owner = file == null ? null : file.owner(this);
+    RenderListener listener = owner == null ? null : owner.getRenderListener();
+    if (listener == null) {
+      render(context, writer);
+      return;
+    }
+    FastStringWriter buffer =
+        writer instanceof FastStringWriter ? (FastStringWriter) writer : null;
+    int offset = buffer == null ? 0 : buffer.length();
+    long start = System.nanoTime();
+    try {
+      render(context, writer);
+    } finally {
+      long nanos = System.nanoTime() - start;
+      listener.template(filename(),
+          buffer == null ? -1 : buffer.length() - offset, nanos);
+    }
+  }
+
+  /**
+   * Merge this template. Containers merge their children directly and report
+   * an error with the position of the failing child, so this is the only
+   * catch of a template that isn't a container.
+   *
+   * @param context The scope object.
+   * @param writer The writer.
+   * @throws IOException If a resource cannot be loaded.
+   */
+  private void render(final Context context, final Writer writer)
+      throws IOException {
     try {
       merge(wrap(context), writer);
-    } catch (HandlebarsException ex) {
-      throw ex;
     } catch (Exception ex) {
-      String message =
-          filename + ":" + line + ":" + column + ": "
-              + ex.getMessage() + "\n";
+      throw error(ex);
+    }
+  }
+
+  /**
+   * Creates an error that reports the position of this template. Handlebars
+   * exceptions, like the ones of a failing child, are returned as they are.
+   *
+   * @param cause The error cause. Required.
+   * @return A handlebars exception with the cause's stack-trace.
+   */
+  final HandlebarsException error(final Exception cause) {
+    if (cause instanceof HandlebarsException) {
+      return (HandlebarsException) cause;
+    }
+    String message =
+        filename() + ":" + line() + ":" + column() + ": "
+            + cause.getMessage() + "\n";
+    message += "    " + toString();
+    HandlebarsException hex = new HandlebarsException(message);
+    // Override the stack-trace
+    hex.setStackTrace(cause.getStackTrace());
+    return hex;
+  }
+
+  @Override
+  public Template bind(final Class<?> modelType) {
+    checkNotNull(modelType, "The model type is required.");
+    if (file == null) {
+      Schema schema = Schema.root(modelType);
+      bind(schema, new HashSet<String>());
+      schema.install();
+    } else {
+      file.bind(this, modelType);
+    }
+    return this;
+  }
+
+  /**
+   * Type-check this template against the given schema. Templates without
+   * variables have nothing to check.
+   *
+   * @param schema The model types. Required.
+   * @param visited The partials bound so far, useful for recursive partials.
+   */
+  protected void bind(final Schema schema, final Set<String> visited) {
+  }
+
+  @Override
+  public final long retainedSize() {
+    Footprint footprint = new Footprint();
+    measure(footprint);
+    return footprint.bytes();
+  }
+
+  /**
+   * Add this template to the footprint, unless it was added before.
+   *
+   * @param footprint The footprint. Required.
+   */
+  final void measure(final Footprint footprint) {
+    if (footprint.add(this)) {
+      size(footprint);
+    }
+  }
+
+  /**
+   * Add the fields and children of this template to the footprint.
+   *
+   * @param footprint The footprint. Required.
+   */
+  void size(final Footprint footprint) {
+    footprint.node();
+    if (footprint.add(file)) {
+      file.size(footprint);
+    }
+  }
+
+  /**
+   * Resolve a path against the given schema.
+   *
+   * @param schema The model types. Required.
+   * @param name The path. Required.
+   * @return The resolved path.
+   * @throws HandlebarsException If the path doesn't exist.
+   */
+  protected final Schema.Path lookup(final Schema schema, final String name) {
+    try {
+      return schema.lookup(name);
+    } catch (IllegalArgumentException ex) {
+      String message = filename() + ":" + line() + ":" + column() + ": "
+          + ex.getMessage() + "\n";
       message += "    " + toString();
-      HandlebarsException hex = new HandlebarsException(message);
-      // Override the stack-trace
-      hex.setStackTrace(ex.getStackTrace());
-      throw hex;
+      throw new HandlebarsException(message);
     }
   }
 
@@ -130,26 +272,95 @@ abstract class BaseTemplate implements Template {
   }
 
   /**
-   * Set the file's name.
+   * Set the file this template belongs to.
+   *
+   * @param file The file. Optional.
+   * @return This template.
+   */
+  BaseTemplate file(final SourceFile file) {
+    this.file = file;
+    return this;
+  }
+
+  /**
+   * The file this template belongs to.
+   *
+   * @return The file or null.
+   */
+  SourceFile file() {
+    return file;
+  }
+
+  /**
+   * The file's name.
    *
-   * @param filename The file's name.
+   * @return The file's name or null.
+   */
+  public String filename() {
+    return file == null ? null : file.filename;
+  }
+
+  /**
+   * Make this template the root of its file and set the handlebars object that
+   * reports its rendering time. Optional.
+   *
+   * @param owner The handlebars object.
    * @return This template.
    */
-  public BaseTemplate filename(final String filename) {
-    this.filename = filename;
+  BaseTemplate owner(final Handlebars owner) {
+    if (file == null) {
+      file = new SourceFile(null);
+    }
+    file.root(this, owner);
     return this;
   }
 
   /**
-   * Set the template position.
+   * Move this template (and its children) the given number of lines.
+   *
+   * @param delta The number of lines to move.
+   */
+  void moveLines(final int delta) {
+    position(line() + delta, column());
+  }
+
+  /**
+   * Set the template position. Call it after {@link #file(SourceFile)}.
    *
    * @param line The line.
    * @param column The column.
    * @return This template.
    */
   public BaseTemplate position(final int line, final int column) {
-    this.line = line;
-    this.column = column;
+    if (line >= 0 && line <= MAX_LINE && column >= 0
+        && column <= COLUMN_MASK) {
+      this.position = line << COLUMN_BITS | column;
+    } else {
+      if (file == null) {
+        file = new SourceFile(null);
+      }
+      this.position = -file.add(line, column) - 1;
+    }
     return this;
   }
+
+  /**
+   * The line of this template.
+   *
+   * @return The line of this template.
+   */
+  public int line() {
+    return position >= 0 ? position >>> COLUMN_BITS
+        : file.line(-position - 1);
+  }
+
+  /**
+   * The column of this template.
+   *
+   * @return The column of this template.
+   */
+  public int column() {
+    return position >= 0 ? position & COLUMN_MASK
+        : file.column(-position - 1);
+  }
 }
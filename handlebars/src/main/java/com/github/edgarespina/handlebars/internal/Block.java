@@ -21,8 +21,10 @@ import static org.parboiled.common.Preconditions.checkNotNull;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.github.edgarespina.handlebars.BuiltInHelpers;
 import com.github.edgarespina.handlebars.Context;
@@ -97,6 +99,7 @@ class Block extends HelperResolver {
     this.type = inverted ? "^" : "#";
     params(params);
     hash(hash);
+    bind(this.name);
   }
 
   @SuppressWarnings("unchecked")
@@ -104,11 +107,12 @@ class Block extends HelperResolver {
   public void merge(final Context context,
       final Writer writer) throws IOException {
     Helper<Object> helper = helper(name);
+    boolean registered = helper != null;
     BaseTemplate template = body;
     final Object childContext;
     Context currentScope = context;
     if (helper == null) {
-      childContext = transform(context.get(name));
+      childContext = transform(value(context, name));
       if (inverted) {
         helper = BuiltInHelpers.UNLESS;
       } else if (childContext instanceof Iterable) {
@@ -121,7 +125,7 @@ class Block extends HelperResolver {
             .compile(handlebars,
                 (Lambda<Object, Object>) childContext,
                 context, template,
-                startDelimiter, endDelimiter);
+                startDelimiter, endDelimiter, lambdas());
       } else {
         helper = BuiltInHelpers.WITH;
         currentScope = Context.newContext(context, childContext);
@@ -131,19 +135,103 @@ class Block extends HelperResolver {
     }
     DefaultOptions options =
         new DefaultOptions(handlebars, template, inverse, currentScope,
-            params(currentScope), hash(context));
-    CharSequence result = helper.apply(childContext, options);
+            params(currentScope), hash(context)).writer(writer);
+    CharSequence result = registered
+        ? call(name, helper, childContext, options)
+        : helper.apply(childContext, options);
     if (result != null) {
       writer.append(result);
     }
     options.destroy();
   }
 
+  /**
+   * Fold a section of the built-in if/unless helpers with a literal
+   * condition into the chosen branch.
+   *
+   * @return The chosen branch or this block.
+   */
+  BaseTemplate fold() {
+    Helper<Object> helper = handlebars.helper(name);
+    boolean unless = helper == BuiltInHelpers.UNLESS;
+    if ((helper != BuiltInHelpers.IF && !unless) || !constant()) {
+      return this;
+    }
+    boolean empty = Handlebars.Utils.isEmpty(determineContext(null));
+    return new Folded(this, empty == unless ? body : inverse, helper);
+  }
+
+  @Override
+  protected void bind(final Schema schema, final Set<String> visited) {
+    Helper<Object> helper = bind(name);
+    Schema child;
+    if (helper == null) {
+      Schema.Path path = lookup(schema, name);
+      schema.accessor(this, path.accessor());
+      Type type = path.type();
+      if (inverted || Schema.isBoolean(type)) {
+        child = schema;
+      } else if (type == null) {
+        child = schema.dynamic();
+      } else if (Schema.isIterable(type)) {
+        child = schema.child(Schema.elementType(type));
+      } else {
+        child = schema.child(type);
+      }
+    } else {
+      Schema.Path context = bindParams(schema);
+      if (helper == BuiltInHelpers.IF || helper == BuiltInHelpers.UNLESS) {
+        child = schema;
+      } else if (helper == BuiltInHelpers.EACH) {
+        child = schema.child(Schema.elementType(context.type()));
+      } else if (helper == BuiltInHelpers.WITH) {
+        child = schema.child(context.type());
+      } else {
+        child = schema.dynamic();
+      }
+    }
+    if (body != null) {
+      body.bind(child, visited);
+    }
+    if (inverse != null) {
+      inverse.bind(schema, visited);
+    }
+  }
+
+  @Override
+  void moveLines(final int delta) {
+    super.moveLines(delta);
+    if (body != null) {
+      body.moveLines(delta);
+    }
+    if (inverse != null) {
+      inverse.moveLines(delta);
+    }
+  }
+
+  @Override
+  void size(final Footprint footprint) {
+    super.size(footprint);
+    // body, name, inverted, type, delimiters and inverse.
+    footprint.fields(7);
+    footprint.string(name);
+    footprint.string(type);
+    footprint.string(startDelimiter);
+    footprint.string(endDelimiter);
+    if (body != null) {
+      body.measure(footprint);
+    }
+    if (inverse != null) {
+      inverse.measure(footprint);
+    }
+  }
+
   /**
    * The section's name.
    *
    * @return The section's name.
    */
+  @Override
   public String name() {
     return name;
   }
@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+import com.github.edgarespina.handlebars.Context;
+import com.github.edgarespina.handlebars.Template;
+
+/**
+ * A template made of independent chunks of source. Each chunk is a run of
+ * whole lines outside of any section, so it can be parsed on its own. The
+ * source is kept, so the unchanged chunks can be reused when the template is
+ * reparsed after an edit.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+class ChunkedTemplate extends BaseTemplate {
+
+  /**
+   * The template's source.
+   */
+  private final String source;
+
+  /**
+   * The start offset of each chunk. The last entry is the source's length.
+   */
+  private final int[] offsets;
+
+  /**
+   * The start line of each chunk.
+   */
+  private final int[] lines;
+
+  /**
+   * The template of each chunk.
+   */
+  private final BaseTemplate[] chunks;
+
+  /**
+   * Creates a new {@link ChunkedTemplate}.
+   *
+   * @param source The template's source.
+   * @param offsets The start offset of each chunk, plus the source's length.
+   * @param lines The start line of each chunk.
+   * @param chunks The template of each chunk.
+   */
+  public ChunkedTemplate(final String source, final int[] offsets,
+      final int[] lines, final BaseTemplate[] chunks) {
+    this.source = source;
+    this.offsets = offsets;
+    this.lines = lines;
+    this.chunks = chunks;
+  }
+
+  @Override
+  protected void merge(final Context context, final Writer writer)
+      throws IOException {
+    int i = 0;
+    try {
+      for (; i < chunks.length; i++) {
+        chunks[i].merge(context, writer);
+      }
+    } catch (Exception ex) {
+      throw chunks[i].error(ex);
+    }
+  }
+
+  @Override
+  protected void bind(final Schema schema, final Set<String> visited) {
+    for (BaseTemplate chunk : chunks) {
+      chunk.bind(schema, visited);
+    }
+  }
+
+  @Override
+  void moveLines(final int delta) {
+    super.moveLines(delta);
+    for (BaseTemplate chunk : chunks) {
+      chunk.moveLines(delta);
+    }
+  }
+
+  @Override
+  void size(final Footprint footprint) {
+    super.size(footprint);
+    footprint.fields(4);
+    footprint.string(source);
+    footprint.array(offsets.length, 4);
+    footprint.array(lines.length, 4);
+    footprint.array(chunks.length, 4);
+    for (BaseTemplate chunk : chunks) {
+      chunk.measure(footprint);
+    }
+  }
+
+  @Override
+  public boolean remove(final Template child) {
+    for (BaseTemplate chunk : chunks) {
+      if (chunk == child || chunk.remove(child)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String text() {
+    StringBuilder buffer = new StringBuilder();
+    for (BaseTemplate chunk : chunks) {
+      buffer.append(chunk.text());
+    }
+    return buffer.toString();
+  }
+
+  /**
+   * The template's source.
+   *
+   * @return The template's source.
+   */
+  public String source() {
+    return source;
+  }
+
+  /**
+   * The number of chunks.
+   *
+   * @return The number of chunks.
+   */
+  public int size() {
+    return chunks.length;
+  }
+
+  /**
+   * The start offset of a chunk.
+   *
+   * @param index The chunk's index.
+   * @return The start offset of a chunk.
+   */
+  public int start(final int index) {
+    return offsets[index];
+  }
+
+  /**
+   * The end offset (exclusive) of a chunk.
+   *
+   * @param index The chunk's index.
+   * @return The end offset of a chunk.
+   */
+  public int end(final int index) {
+    return offsets[index + 1];
+  }
+
+  /**
+   * The start line of a chunk.
+   *
+   * @param index The chunk's index.
+   * @return The start line of a chunk.
+   */
+  public int line(final int index) {
+    return lines[index];
+  }
+
+  /**
+   * The template of a chunk.
+   *
+   * @param index The chunk's index.
+   * @return The template of a chunk.
+   */
+  public BaseTemplate chunk(final int index) {
+    return chunks[index];
+  }
+}
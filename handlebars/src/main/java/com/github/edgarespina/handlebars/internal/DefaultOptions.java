@@ -20,6 +20,7 @@ package com.github.edgarespina.handlebars.internal;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import com.github.edgarespina.handlebars.Context;
 import com.github.edgarespina.handlebars.Handlebars;
@@ -37,7 +38,7 @@ class DefaultOptions extends Options {
   /**
    * An empty template implementation.
    */
-  private static Template EMPTY = new Template() {
+  private static final Template EMPTY = new Template() {
     @Override
     public String text() {
       return "";
@@ -62,6 +63,22 @@ class DefaultOptions extends Options {
     public void apply(final Object context, final Writer writer)
         throws IOException {
     }
+
+    @Override
+    public Future<Writer> applyAsync(final Object context, final Writer writer)
+        throws IOException {
+      return new AsyncWriter().drainTo(writer);
+    }
+
+    @Override
+    public long retainedSize() {
+      return 0;
+    }
+
+    @Override
+    public Template bind(final Class<?> modelType) {
+      return this;
+    }
   };
 
   /**
@@ -69,6 +86,11 @@ class DefaultOptions extends Options {
    */
   private Map<String, Object> storage;
 
+  /**
+   * The writer of the current template or null.
+   */
+  private Writer writer;
+
   /**
    * Creates a new {@link DefaultOptions}.
    *
@@ -87,6 +109,24 @@ class DefaultOptions extends Options {
     this.storage = context.storage();
   }
 
+  /**
+   * Set the writer of the current template, for {@link #flush()}.
+   *
+   * @param writer The writer. Optional.
+   * @return This options.
+   */
+  public DefaultOptions writer(final Writer writer) {
+    this.writer = writer;
+    return this;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (writer != null) {
+      writer.flush();
+    }
+  }
+
   @Override
   public CharSequence fn() throws IOException {
     return fn(context);
@@ -180,6 +220,7 @@ class DefaultOptions extends Options {
   public void destroy() {
     this.hash.clear();
     this.storage = null;
+    this.writer = null;
   }
 
 }
@@ -65,6 +65,52 @@ class FastStringWriter extends Writer {
     this.buffer.append(buffer, off, len);
   }
 
+  @Override
+  public Writer append(final CharSequence csq) throws IOException {
+    buffer.append(csq);
+    return this;
+  }
+
+  @Override
+  public Writer append(final CharSequence csq, final int start,
+      final int end) throws IOException {
+    buffer.append(csq, start, end);
+    return this;
+  }
+
+  /**
+   * Append a number without creating a string for it.
+   *
+   * @param value The number.
+   * @return This writer.
+   */
+  public FastStringWriter append(final long value) {
+    buffer.append(value);
+    return this;
+  }
+
+  /**
+   * Append a number without creating a string for it.
+   *
+   * @param value The number.
+   * @return This writer.
+   */
+  public FastStringWriter append(final float value) {
+    buffer.append(value);
+    return this;
+  }
+
+  /**
+   * Append a number without creating a string for it.
+   *
+   * @param value The number.
+   * @return This writer.
+   */
+  public FastStringWriter append(final double value) {
+    buffer.append(value);
+    return this;
+  }
+
   @Override
   public void flush() throws IOException {
   }
@@ -74,6 +120,15 @@ class FastStringWriter extends Writer {
     buffer.delete(0, buffer.length());
   }
 
+  /**
+   * The number of characters written so far.
+   *
+   * @return The number of characters written so far.
+   */
+  public int length() {
+    return buffer.length();
+  }
+
   @Override
   public String toString() {
     return buffer.toString();
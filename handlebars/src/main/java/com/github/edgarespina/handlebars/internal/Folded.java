@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import static org.parboiled.common.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+import com.github.edgarespina.handlebars.Context;
+import com.github.edgarespina.handlebars.Helper;
+import com.github.edgarespina.handlebars.Template;
+
+/**
+ * A template whose output was computed at compile time: the chosen branch of
+ * a section with a literal condition or the output of a pure helper. The
+ * original template is kept for its text, type-checking and position. It's
+ * rendered instead if another helper was registered with the name of the
+ * helper used at compile time.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+class Folded extends BaseTemplate {
+
+  /**
+   * The original template.
+   */
+  private final BaseTemplate original;
+
+  /**
+   * The template to render or null if there is nothing to render.
+   */
+  private final BaseTemplate value;
+
+  /**
+   * The helper used at compile time or null.
+   */
+  private final Helper<Object> helper;
+
+  /**
+   * Creates a new {@link Folded}.
+   *
+   * @param original The original template. Required.
+   * @param value The template to render. Optional.
+   */
+  public Folded(final BaseTemplate original, final BaseTemplate value) {
+    this.original = checkNotNull(original, "The template is required.");
+    this.value = value;
+    this.helper = null;
+    file(original.file());
+    position(original.line(), original.column());
+  }
+
+  /**
+   * Creates a new {@link Folded} whose value was computed by a helper.
+   *
+   * @param original The original template. Required.
+   * @param value The template to render. Optional.
+   * @param helper The helper used at compile time. Required.
+   */
+  public Folded(final HelperResolver original, final BaseTemplate value,
+      final Helper<Object> helper) {
+    this.original = checkNotNull(original, "The template is required.");
+    this.value = value;
+    this.helper = checkNotNull(helper, "The helper is required.");
+    file(original.file());
+    position(original.line(), original.column());
+  }
+
+  @Override
+  protected void merge(final Context context, final Writer writer)
+      throws IOException {
+    BaseTemplate template = registered() ? value : original;
+    if (template != null) {
+      try {
+        template.merge(context, writer);
+      } catch (Exception ex) {
+        throw template.error(ex);
+      }
+    }
+  }
+
+  @Override
+  protected void bind(final Schema schema, final Set<String> visited) {
+    original.bind(schema, visited);
+  }
+
+  @Override
+  void moveLines(final int delta) {
+    super.moveLines(delta);
+    original.moveLines(delta);
+  }
+
+  @Override
+  void size(final Footprint footprint) {
+    super.size(footprint);
+    // original, value and helper.
+    footprint.fields(3);
+    original.measure(footprint);
+    if (value != null) {
+      value.measure(footprint);
+    }
+  }
+
+  @Override
+  public boolean remove(final Template child) {
+    return original.remove(child);
+  }
+
+  /**
+   * True if the helper used at compile time is still registered, or if the
+   * value doesn't depend on a helper.
+   *
+   * @return True if the value can be rendered.
+   */
+  public boolean registered() {
+    return helper == null || ((HelperResolver) original).registered(helper);
+  }
+
+  /**
+   * The helper used at compile time.
+   *
+   * @return The helper used at compile time or null.
+   */
+  public Helper<Object> helper() {
+    return helper;
+  }
+
+  /**
+   * The template to render.
+   *
+   * @return The template to render or null.
+   */
+  public BaseTemplate value() {
+    return value;
+  }
+
+  @Override
+  public String text() {
+    return original.text();
+  }
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Estimate the memory retained by a template. Sizes assume a 64 bits JVM with
+ * compressed references: 12 bytes per object header and 4 bytes per
+ * reference. Objects shared between nodes, like partials or file names, are
+ * counted once.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+final class Footprint {
+
+  /**
+   * The size of an object header.
+   */
+  private static final int HEADER = 12;
+
+  /**
+   * The size of a reference.
+   */
+  private static final int REFERENCE = 4;
+
+  /**
+   * The objects measured so far.
+   */
+  private final Map<Object, Object> seen =
+      new IdentityHashMap<Object, Object>();
+
+  /**
+   * The number of template nodes.
+   */
+  private int nodes;
+
+  /**
+   * The number of static text characters.
+   */
+  private long chars;
+
+  /**
+   * The estimated size, in bytes.
+   */
+  private long bytes;
+
+  /**
+   * Mark an object as measured.
+   *
+   * @param object The object.
+   * @return True if the object wasn't measured before.
+   */
+  public boolean add(final Object object) {
+    return object != null && seen.put(object, this) == null;
+  }
+
+  /**
+   * Add a template node, including the fields of {@link BaseTemplate}.
+   */
+  public void node() {
+    nodes++;
+    // source and position.
+    bytes += HEADER + REFERENCE + 4;
+  }
+
+  /**
+   * Add the reference fields of an object.
+   *
+   * @param count The number of fields.
+   */
+  public void fields(final int count) {
+    bytes += count * REFERENCE;
+  }
+
+  /**
+   * Add a static text.
+   *
+   * @param text The text.
+   */
+  public void text(final String text) {
+    if (text != null && !seen.containsKey(text)) {
+      chars += text.length();
+    }
+    string(text);
+  }
+
+  /**
+   * Add a string.
+   *
+   * @param string The string.
+   */
+  public void string(final String string) {
+    if (add(string)) {
+      // hash and value fields, plus the char array.
+      bytes += align(HEADER + 4 + REFERENCE) + sizeOf(string.length(), 2);
+    }
+  }
+
+  /**
+   * Add an array.
+   *
+   * @param length The array length.
+   * @param elementSize The size of each element, in bytes.
+   */
+  public void array(final int length, final int elementSize) {
+    bytes += sizeOf(length, elementSize);
+  }
+
+  /**
+   * Add an array list, without its elements.
+   *
+   * @param size The list's size.
+   */
+  public void list(final int size) {
+    // size and array fields, plus the array.
+    bytes += align(HEADER + 4 + REFERENCE) + sizeOf(size, REFERENCE);
+  }
+
+  /**
+   * Add a collection and its elements.
+   *
+   * @param collection The collection.
+   */
+  public void collection(final Collection<?> collection) {
+    if (add(collection) && !collection.isEmpty()) {
+      list(collection.size());
+      for (Object value : collection) {
+        value(value);
+      }
+    }
+  }
+
+  /**
+   * Add a hash and its entries.
+   *
+   * @param map The hash.
+   */
+  public void map(final Map<?, ?> map) {
+    if (add(map) && !map.isEmpty()) {
+      // A linked hash map, its table and its entries.
+      bytes += 56 + sizeOf(map.size() * 4 / 3 + 1, REFERENCE) + 40
+          * map.size();
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        value(entry.getKey());
+        value(entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Add an array of params or hash values, unless it's shared.
+   *
+   * @param values The values.
+   */
+  public void values(final Object[] values) {
+    if (values.length > 0 && add(values)) {
+      array(values.length, REFERENCE);
+      for (Object value : values) {
+        value(value);
+      }
+    }
+  }
+
+  /**
+   * Add an array of strings, unless it's shared.
+   *
+   * @param strings The strings.
+   */
+  public void strings(final String[] strings) {
+    if (strings.length > 0 && add(strings)) {
+      array(strings.length, REFERENCE);
+      for (String string : strings) {
+        string(string);
+      }
+    }
+  }
+
+  /**
+   * Add a param or hash value.
+   *
+   * @param value The value.
+   */
+  public void value(final Object value) {
+    if (value instanceof String) {
+      string((String) value);
+    } else if (value instanceof Collection) {
+      collection((Collection<?>) value);
+    } else if (value instanceof Map) {
+      map((Map<?, ?>) value);
+    } else if (add(value)) {
+      // Numbers, booleans, etc.
+      bytes += 16;
+    }
+  }
+
+  /**
+   * The number of template nodes.
+   *
+   * @return The number of template nodes.
+   */
+  public int nodes() {
+    return nodes;
+  }
+
+  /**
+   * The number of static text characters.
+   *
+   * @return The number of static text characters.
+   */
+  public long chars() {
+    return chars;
+  }
+
+  /**
+   * The estimated size, in bytes.
+   *
+   * @return The estimated size, in bytes.
+   */
+  public long bytes() {
+    return bytes;
+  }
+
+  /**
+   * The size of an array.
+   *
+   * @param length The array length.
+   * @param elementSize The size of each element, in bytes.
+   * @return The size of an array.
+   */
+  private static long sizeOf(final int length, final int elementSize) {
+    return align(16 + (long) length * elementSize);
+  }
+
+  /**
+   * Align a size to 8 bytes.
+   *
+   * @param size The size.
+   * @return The aligned size.
+   */
+  private static long align(final long size) {
+    return (size + 7) & ~7L;
+  }
+}
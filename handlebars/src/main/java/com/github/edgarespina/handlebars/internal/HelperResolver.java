@@ -19,16 +19,17 @@ package com.github.edgarespina.handlebars.internal;
 
 import static org.parboiled.common.Preconditions.checkNotNull;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import com.github.edgarespina.handlebars.Context;
 import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.Handlebars.FutureString;
 import com.github.edgarespina.handlebars.Helper;
+import com.github.edgarespina.handlebars.Options;
+import com.github.edgarespina.handlebars.RenderListener;
 import com.github.edgarespina.handlebars.Template;
 
 /**
@@ -39,25 +40,81 @@ import com.github.edgarespina.handlebars.Template;
  */
 abstract class HelperResolver extends BaseTemplate {
 
+  /**
+   * A helper bound to a snapshot of the helper registry.
+   *
+   * @author edgar.espina
+   * @since 0.2.2
+   */
+  private static final class Binding {
+    /**
+     * The registry snapshot.
+     */
+    private final Map<String, Helper<Object>> registry;
+
+    /**
+     * The helper or null if there isn't a helper with that name.
+     */
+    private final Helper<Object> helper;
+
+    /**
+     * Creates a new {@link Binding}.
+     *
+     * @param registry The registry snapshot.
+     * @param name The helper's name.
+     */
+    public Binding(final Map<String, Helper<Object>> registry,
+        final String name) {
+      this.registry = registry;
+      this.helper = registry.get(name);
+    }
+  }
+
   /**
    * The handlebars object. Required.
    */
   protected final Handlebars handlebars;
 
   /**
-   * The parameter list.
+   * Empty parameters.
    */
-  private List<Object> params = Collections.emptyList();
+  private static final Object[] PARAMS = {};
 
   /**
-   * The hash object.
+   * Empty hash names.
    */
-  private Map<String, Object> hash = Collections.emptyMap();
+  private static final String[] NAMES = {};
 
   /**
-   * Empty parameters.
+   * The parameter list. Empty lists share {@link #PARAMS}.
    */
-  private static final Object[] PARAMS = {};
+  private Object[] params = PARAMS;
+
+  /**
+   * The hash names. Empty hashes share {@link #NAMES}.
+   */
+  private String[] hashNames = NAMES;
+
+  /**
+   * The hash values, in the same order than {@link #hashNames}.
+   */
+  private Object[] hashValues = PARAMS;
+
+  /**
+   * The current helper binding. A new binding is created if the registry
+   * changed since the last lookup.
+   */
+  private Binding binding;
+
+  /**
+   * The direct accessor installed when the template is bound or null.
+   */
+  private volatile Schema.Accessor accessor;
+
+  /**
+   * The templates created by lambdas, created on first use.
+   */
+  private volatile LambdaCache lambdas;
 
   /**
    * Creates a new {@link HelperResolver}.
@@ -77,10 +134,9 @@ abstract class HelperResolver extends BaseTemplate {
    */
   protected Map<String, Object> hash(final Context context) {
     Map<String, Object> result = new LinkedHashMap<String, Object>();
-    for (Entry<String, Object> entry : this.hash.entrySet()) {
-      Object value = entry.getValue();
-      value = ParamType.parse(context, value);
-      result.put(entry.getKey(), value);
+    for (int i = 0; i < hashNames.length; i++) {
+      Object value = ParamType.parse(context, hashValues[i]);
+      result.put(hashNames[i], value);
     }
     return result;
   }
@@ -92,12 +148,12 @@ abstract class HelperResolver extends BaseTemplate {
    * @return A parameter list with values in the current context.
    */
   protected Object[] params(final Context scope) {
-    if (params.size() <= 1) {
+    if (params.length <= 1) {
       return PARAMS;
     }
-    Object[] values = new Object[params.size() - 1];
-    for (int i = 1; i < params.size(); i++) {
-      Object value = params.get(i);
+    Object[] values = new Object[params.length - 1];
+    for (int i = 1; i < params.length; i++) {
+      Object value = params[i];
       value = ParamType.parse(scope, value);
       values[i - 1] = value;
     }
@@ -112,14 +168,121 @@ abstract class HelperResolver extends BaseTemplate {
    * @return The current context.
    */
   protected Object determineContext(final Context context) {
-    if (params.size() == 0) {
+    if (params.length == 0) {
       return context.model();
     }
-    Object value = params.get(0);
+    Object value = params[0];
     value = ParamType.parse(context, value);
     return value;
   }
 
+  /**
+   * True if there is at least one parameter and all the parameters and hash
+   * values are literals, so the helper gets the same arguments on every call.
+   *
+   * @return True if the arguments are literals.
+   */
+  protected boolean constant() {
+    if (params.length == 0) {
+      return false;
+    }
+    for (Object param : params) {
+      if (ParamType.isReference(param)) {
+        return false;
+      }
+    }
+    for (Object value : hashValues) {
+      if (ParamType.isReference(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Lookup the given path in the context stack. The direct accessor is tried
+   * first, if the template was bound to a model type and the context uses the
+   * default value resolvers.
+   *
+   * @param scope The current context.
+   * @param name The path.
+   * @return The value or null.
+   */
+  protected Object value(final Context scope, final String name) {
+    Schema.Accessor accessor = this.accessor;
+    if (accessor != null && scope.defaultResolvers()) {
+      Object value = accessor.get(scope.model());
+      if (value != null) {
+        return value;
+      }
+    }
+    return scope.get(name);
+  }
+
+  /**
+   * Set the direct accessor for the path of this template. The first binding
+   * wins: a partial shared by templates bound to other types keeps its
+   * accessor, and the others fall back to the context stack.
+   *
+   * @param accessor The direct accessor or null.
+   */
+  protected void accessor(final Schema.Accessor accessor) {
+    if (this.accessor == null) {
+      this.accessor = accessor;
+    }
+  }
+
+  /**
+   * Type-check the parameters and hash values that are references to the
+   * context stack.
+   *
+   * @param schema The model types.
+   * @return The resolved context of a helper: the first parameter or the
+   *         current model.
+   */
+  protected Schema.Path bindParams(final Schema schema) {
+    Schema.Path context = null;
+    for (Object param : params) {
+      Schema.Path path = bindParam(schema, param);
+      if (context == null) {
+        context = path;
+      }
+    }
+    for (Object value : hashValues) {
+      bindParam(schema, value);
+    }
+    return context == null ? lookup(schema, ".") : context;
+  }
+
+  /**
+   * Type-check a parameter.
+   *
+   * @param schema The model types.
+   * @param param The parameter.
+   * @return The resolved parameter.
+   */
+  private Schema.Path bindParam(final Schema schema, final Object param) {
+    if (ParamType.isReference(param)) {
+      return lookup(schema, (String) param);
+    }
+    return Schema.Path.DYNAMIC;
+  }
+
+  /**
+   * The cache of the templates created by lambdas in this template.
+   *
+   * @return The lambda cache.
+   */
+  protected LambdaCache lambdas() {
+    LambdaCache cache = lambdas;
+    if (cache == null) {
+      // A race creates two caches, one of them is dropped.
+      cache = new LambdaCache(LambdaCache.CAPACITY);
+      lambdas = cache;
+    }
+    return cache;
+  }
+
   /**
    * Transform the given value (if applies).
    *
@@ -130,6 +293,42 @@ abstract class HelperResolver extends BaseTemplate {
     return Transformer.transform(value);
   }
 
+  /**
+   * Apply a helper and report the time spent to the {@link RenderListener}, if
+   * any.
+   *
+   * @param name The helper's name. Required.
+   * @param helper The helper. Required.
+   * @param context The helper's context.
+   * @param options The helper's options. Required.
+   * @return The helper's output.
+   * @throws IOException If the helper fails.
+   */
+  protected final CharSequence call(final String name,
+      final Helper<Object> helper, final Object context,
+      final Options options) throws IOException {
+    RenderListener listener = handlebars.getRenderListener();
+    if (listener == null) {
+      return helper.apply(context, options);
+    }
+    long start = System.nanoTime();
+    CharSequence result = null;
+    try {
+      result = helper.apply(context, options);
+      return result;
+    } finally {
+      long nanos = System.nanoTime() - start;
+      int size = 0;
+      if (result instanceof FutureString) {
+        // Don't wait for it.
+        size = -1;
+      } else if (result != null) {
+        size = result.length();
+      }
+      listener.helper(name, filename(), line(), size, nanos);
+    }
+  }
+
   /**
    * Find the helper by it's name.
    *
@@ -137,14 +336,60 @@ abstract class HelperResolver extends BaseTemplate {
    * @return The matching helper.
    */
   protected Helper<Object> helper(final String name) {
-    Helper<Object> helper = handlebars.helper(name);
-    if (helper == null && (params.size() > 0 || hash.size() > 0)) {
+    Helper<Object> helper = bind(name);
+    if (helper == null && (params.length > 0 || hashNames.length > 0)) {
       throw new IllegalArgumentException("could not find helper: '" + name
           + "'");
     }
     return helper;
   }
 
+  /**
+   * The name of the helper or path.
+   *
+   * @return The name of the helper or path.
+   */
+  public abstract String name();
+
+  /**
+   * True if the given helper is still the one registered with the name of
+   * this template. Helpers can be registered after a template is compiled.
+   *
+   * @param helper The helper.
+   * @return True if the given helper is still the registered one.
+   */
+  boolean registered(final Helper<Object> helper) {
+    return bind(name()) == helper;
+  }
+
+  /**
+   * Bind the helper with the given name. The registry is only looked up when
+   * it changed since the last call.
+   *
+   * @param name The helper's name.
+   * @return The matching helper or null.
+   */
+  protected final Helper<Object> bind(final String name) {
+    Map<String, Helper<Object>> registry = handlebars.helpers();
+    Binding current = binding;
+    if (current == null || current.registry != registry) {
+      current = new Binding(registry, name);
+      binding = current;
+    }
+    return current.helper;
+  }
+
+  @Override
+  void size(final Footprint footprint) {
+    super.size(footprint);
+    // The helper registry, accessor and lambda templates are shared or
+    // created at runtime.
+    footprint.fields(7);
+    footprint.values(params);
+    footprint.strings(hashNames);
+    footprint.values(hashValues);
+  }
+
   /**
    * Set the hash.
    *
@@ -153,9 +398,11 @@ abstract class HelperResolver extends BaseTemplate {
    */
   public HelperResolver hash(final Map<String, Object> hash) {
     if (hash == null || hash.size() == 0) {
-      this.hash = Collections.emptyMap();
+      this.hashNames = NAMES;
+      this.hashValues = PARAMS;
     } else {
-      this.hash = new LinkedHashMap<String, Object>(hash);
+      this.hashNames = hash.keySet().toArray(new String[hash.size()]);
+      this.hashValues = hash.values().toArray(new Object[hash.size()]);
     }
     return this;
   }
@@ -168,9 +415,9 @@ abstract class HelperResolver extends BaseTemplate {
    */
   public HelperResolver params(final List<Object> params) {
     if (params == null || params.size() == 0) {
-      this.params = Collections.emptyList();
+      this.params = PARAMS;
     } else {
-      this.params = new ArrayList<Object>(params);
+      this.params = params.toArray(new Object[params.size()]);
     }
     return this;
   }
@@ -181,7 +428,7 @@ abstract class HelperResolver extends BaseTemplate {
    * @return Make a string of {@link #params}.
    */
   protected String paramsToString() {
-    if (params.size() > 0) {
+    if (params.length > 0) {
       StringBuilder buffer = new StringBuilder();
       String sep = " ";
       for (Object param : params) {
@@ -194,16 +441,16 @@ abstract class HelperResolver extends BaseTemplate {
   }
 
   /**
-   * Make a string of {@link #hash}.
+   * Make a string of the hash.
    *
-   * @return Make a string of {@link #hash}.
+   * @return Make a string of the hash.
    */
   protected String hashToString() {
-    if (hash.size() > 0) {
+    if (hashNames.length > 0) {
       StringBuilder buffer = new StringBuilder();
       String sep = " ";
-      for (Entry<String, Object> hash : this.hash.entrySet()) {
-        buffer.append(hash.getKey()).append("=").append(hash.getValue())
+      for (int i = 0; i < hashNames.length; i++) {
+        buffer.append(hashNames[i]).append("=").append(hashValues[i])
             .append(sep);
       }
       buffer.setLength(buffer.length() - sep.length());
@@ -0,0 +1,256 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import static org.parboiled.common.Preconditions.checkArgument;
+import static org.parboiled.common.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.HandlebarsException;
+import com.github.edgarespina.handlebars.Template;
+
+/**
+ * Parse a template in chunks, so an edited template can be reparsed by
+ * reusing the chunks the edit didn't touch. A chunk is a run of whole lines
+ * outside of any section: it's parsed exactly as the full template would, so
+ * standalone tags and blank lines are handled the same way.
+ * <p>
+ * Templates that change the delimiters, that are unbalanced or that have
+ * errors are parsed as a whole.
+ * </p>
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public final class IncrementalParser {
+
+  /**
+   * The minimum number of chars of a chunk.
+   */
+  static final int CHUNK_SIZE = 1024;
+
+  /**
+   * The file's name for templates created from strings.
+   */
+  private static final String FILENAME = "embedded";
+
+  /**
+   * The start delimiter.
+   */
+  private static final String START_DELIM = "{{";
+
+  /**
+   * The end delimiter.
+   */
+  private static final String END_DELIM = "}}";
+
+  /**
+   * Not allowed.
+   */
+  private IncrementalParser() {
+  }
+
+  /**
+   * Parse the input, reusing the chunks of the previous template that are
+   * outside of the edited range.
+   *
+   * @param handlebars The handlebars object. Required.
+   * @param previous The previous template. Optional.
+   * @param input The new source. Required.
+   * @param start The start of the edited range in the new source.
+   * @param end The end (exclusive) of the edited range in the new source.
+   * @return A new template.
+   * @throws IOException If a partial cannot be loaded.
+   */
+  public static Template parse(final Handlebars handlebars,
+      final Template previous, final String input, final int start,
+      final int end) throws IOException {
+    checkNotNull(handlebars, "The handlebars object is required.");
+    checkNotNull(input, "The input text is required.");
+    checkArgument(input.length() > 0, "The input text is required.");
+    if (handlebars.isMinify()) {
+      // Whitespace depends on the text before a chunk, like an open <pre>.
+      return fullParse(handlebars, input);
+    }
+    ChunkedTemplate old = null;
+    int[] oldOffsets = {};
+    int delta = 0;
+    if (previous instanceof ChunkedTemplate) {
+      old = (ChunkedTemplate) previous;
+      delta = input.length() - old.source().length();
+      oldOffsets = new int[old.size()];
+      for (int i = 0; i < oldOffsets.length; i++) {
+        oldOffsets[i] = old.start(i);
+      }
+    }
+    int[][] split = split(input, oldOffsets, delta, end);
+    if (split == null) {
+      return fullParse(handlebars, input);
+    }
+    int[] offsets = split[0];
+    int[] lines = split[1];
+    int size = lines.length;
+    BaseTemplate[] chunks = new BaseTemplate[size];
+    try {
+      for (int i = 0; i < size; i++) {
+        int from = offsets[i];
+        int to = offsets[i + 1];
+        BaseTemplate chunk = null;
+        if (old != null && to <= start) {
+          chunk = reuse(old, oldOffsets, input, from, to, 0, lines[i]);
+        } else if (old != null && from >= end) {
+          chunk = reuse(old, oldOffsets, input, from, to, delta, lines[i]);
+        }
+        if (chunk == null) {
+          chunk = (BaseTemplate) Parser.create(handlebars, FILENAME,
+              START_DELIM, END_DELIM).parse(input.substring(from, to));
+          chunk.moveLines(lines[i] - 1);
+          // Chunks are timed as a part of the whole template.
+          chunk.owner(null);
+        }
+        chunks[i] = chunk;
+      }
+    } catch (HandlebarsException ex) {
+      // Report the error with the right position.
+      return fullParse(handlebars, input);
+    }
+    return new ChunkedTemplate(input, offsets, lines, chunks)
+        .file(new SourceFile(chunks[0].filename())).owner(handlebars);
+  }
+
+  /**
+   * Find a chunk of the previous template with the same source.
+   *
+   * @param old The previous template.
+   * @param oldOffsets The start offset of each chunk of the previous
+   *        template.
+   * @param input The new source.
+   * @param from The chunk's start.
+   * @param to The chunk's end.
+   * @param delta The offset of the chunk in the previous source.
+   * @param line The chunk's line.
+   * @return The previous chunk, moved to the given line, or null.
+   */
+  private static BaseTemplate reuse(final ChunkedTemplate old,
+      final int[] oldOffsets, final String input, final int from,
+      final int to, final int delta, final int line) {
+    int oldFrom = from - delta;
+    int index = Arrays.binarySearch(oldOffsets, oldFrom);
+    if (index < 0 || old.end(index) != to - delta) {
+      return null;
+    }
+    if (!input.regionMatches(from, old.source(), oldFrom, to - from)) {
+      return null;
+    }
+    BaseTemplate chunk = old.chunk(index);
+    chunk.moveLines(line - old.line(index));
+    return chunk;
+  }
+
+  /**
+   * Parse the input as a whole.
+   *
+   * @param handlebars The handlebars object.
+   * @param input The source.
+   * @return A new template.
+   * @throws IOException If a partial cannot be loaded.
+   */
+  private static Template fullParse(final Handlebars handlebars,
+      final String input) throws IOException {
+    return Parser.create(handlebars, FILENAME, START_DELIM, END_DELIM).parse(
+        input);
+  }
+
+  /**
+   * Split the input in chunks of whole lines outside of any section. A chunk
+   * ends once it has {@link #CHUNK_SIZE} chars, or where a chunk of the
+   * previous template started: after an edit, the chunks line up again with
+   * the previous ones, so they can be reused.
+   *
+   * @param input The source.
+   * @param oldOffsets The start offset of the previous chunks.
+   * @param delta The length difference between the input and the previous
+   *        source.
+   * @param end The end of the edited range in the input.
+   * @return The offsets (plus the input's length) and lines of the chunks,
+   *         or null if the input can't be split.
+   */
+  static int[][] split(final String input, final int[] oldOffsets,
+      final int delta, final int end) {
+    int length = input.length();
+    int[] offsets = new int[length / CHUNK_SIZE + 2];
+    int[] lines = new int[offsets.length];
+    int size = 1;
+    lines[0] = 1;
+    int depth = 0;
+    int line = 1;
+    int i = 0;
+    while (i < length) {
+      char ch = input.charAt(i);
+      if (ch == '\n') {
+        line++;
+        i++;
+        boolean cut = i - offsets[size - 1] >= CHUNK_SIZE
+            || i >= end && Arrays.binarySearch(oldOffsets, i - delta) >= 0;
+        if (depth == 0 && i < length && cut) {
+          if (size + 1 == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+            lines = Arrays.copyOf(lines, size * 2);
+          }
+          offsets[size] = i;
+          lines[size] = line;
+          size++;
+        }
+      } else if (input.startsWith(START_DELIM, i)) {
+        int open = i + START_DELIM.length();
+        char type = open < length ? input.charAt(open) : 0;
+        String close = type == '{' ? "}" + END_DELIM : END_DELIM;
+        int closeAt = input.indexOf(close, open);
+        if (closeAt < 0 || type == '=') {
+          // Unbalanced tag or new delimiters.
+          return null;
+        }
+        if (type == '#' || type == '^') {
+          depth++;
+        } else if (type == '/') {
+          depth--;
+          if (depth < 0) {
+            return null;
+          }
+        }
+        for (int j = open; j < closeAt; j++) {
+          if (input.charAt(j) == '\n') {
+            line++;
+          }
+        }
+        i = closeAt + close.length();
+      } else {
+        i++;
+      }
+    }
+    if (depth != 0) {
+      return null;
+    }
+    offsets[size] = length;
+    return new int[][] {Arrays.copyOf(offsets, size + 1),
+        Arrays.copyOf(lines, size) };
+  }
+}
@@ -0,0 +1,299 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.Lambda;
+
+/**
+ * A small cache of the templates produced by the lambdas of a section or
+ * variable. Lambda output is parsed once per distinct text and delimiters,
+ * without going through the template cache of {@link Handlebars}. The cache
+ * is bounded: the least recently used templates are evicted first. Lookups
+ * don't take locks, so eviction is approximate.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+final class LambdaCache {
+
+  /**
+   * The cache key: the lambda's text plus the delimiters.
+   *
+   * @author edgar.espina
+   * @since 0.2.2
+   */
+  private static final class Key {
+
+    /**
+     * The lambda's text.
+     */
+    private final String text;
+
+    /**
+     * The start delimiter.
+     */
+    private final String startDelimiter;
+
+    /**
+     * The end delimiter.
+     */
+    private final String endDelimiter;
+
+    /**
+     * The hash code.
+     */
+    private final int hash;
+
+    /**
+     * Creates a new {@link Key}.
+     *
+     * @param text The lambda's text.
+     * @param startDelimiter The start delimiter.
+     * @param endDelimiter The end delimiter.
+     */
+    public Key(final String text, final String startDelimiter,
+        final String endDelimiter) {
+      this.text = text;
+      this.startDelimiter = startDelimiter;
+      this.endDelimiter = endDelimiter;
+      this.hash = (text.hashCode() * 31 + hashCode(startDelimiter)) * 31
+          + hashCode(endDelimiter);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (obj instanceof Key) {
+        Key that = (Key) obj;
+        return hash == that.hash && text.equals(that.text)
+            && equals(startDelimiter, that.startDelimiter)
+            && equals(endDelimiter, that.endDelimiter);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    /**
+     * Null-safe hash code.
+     *
+     * @param value The value or null.
+     * @return The hash code.
+     */
+    private static int hashCode(final String value) {
+      return value == null ? 0 : value.hashCode();
+    }
+
+    /**
+     * Null-safe equals.
+     *
+     * @param left The left value or null.
+     * @param right The right value or null.
+     * @return True if both values are equal.
+     */
+    private static boolean equals(final String left, final String right) {
+      return left == null ? right == null : left.equals(right);
+    }
+  }
+
+  /**
+   * A cached template and its last use.
+   *
+   * @author edgar.espina
+   * @since 0.2.2
+   */
+  private static final class Slot {
+
+    /**
+     * The lambda's template.
+     */
+    private final BaseTemplate template;
+
+    /**
+     * When the template was last used, as a tick of the cache's clock.
+     */
+    private volatile long used;
+
+    /**
+     * Creates a new {@link Slot}.
+     *
+     * @param template The lambda's template.
+     */
+    public Slot(final BaseTemplate template) {
+      this.template = template;
+    }
+  }
+
+  /**
+   * The template of a {@link com.github.edgarespina.handlebars.StableLambda}.
+   *
+   * @author edgar.espina
+   * @since 0.2.2
+   */
+  private static final class Memo {
+
+    /**
+     * The lambda.
+     */
+    private final Lambda<Object, Object> lambda;
+
+    /**
+     * The lambda's template.
+     */
+    private final BaseTemplate template;
+
+    /**
+     * Creates a new {@link Memo}.
+     *
+     * @param lambda The lambda.
+     * @param template The lambda's template.
+     */
+    public Memo(final Lambda<Object, Object> lambda,
+        final BaseTemplate template) {
+      this.lambda = lambda;
+      this.template = template;
+    }
+  }
+
+  /**
+   * The default number of templates per section or variable.
+   */
+  public static final int CAPACITY = 16;
+
+  /**
+   * The templates by text and delimiters.
+   */
+  private final ConcurrentMap<Key, Slot> templates =
+      new ConcurrentHashMap<Key, Slot>();
+
+  /**
+   * The max number of templates.
+   */
+  private final int capacity;
+
+  /**
+   * The number of templates.
+   */
+  private final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * The clock of the last use of a template.
+   */
+  private final AtomicLong clock = new AtomicLong();
+
+  /**
+   * The last stable lambda and its template.
+   */
+  private volatile Memo memo;
+
+  /**
+   * Creates a new {@link LambdaCache}.
+   *
+   * @param capacity The max number of templates.
+   */
+  public LambdaCache(final int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * Find or compile the template of the given lambda's text.
+   *
+   * @param handlebars The handlebars object.
+   * @param text The lambda's text.
+   * @param startDelimiter The start delimiter.
+   * @param endDelimiter The end delimiter.
+   * @return The lambda's template.
+   * @throws IOException If a partial cannot be loaded.
+   */
+  public BaseTemplate compile(final Handlebars handlebars, final String text,
+      final String startDelimiter, final String endDelimiter)
+      throws IOException {
+    Key key = new Key(text, startDelimiter, endDelimiter);
+    Slot slot = templates.get(key);
+    if (slot == null) {
+      // A duplicated parse is harmless.
+      slot = new Slot((BaseTemplate) Parser.create(handlebars, "embedded",
+          startDelimiter, endDelimiter).parse(text));
+      Slot existing = templates.putIfAbsent(key, slot);
+      if (existing == null) {
+        slot.used = clock.incrementAndGet();
+        if (size.incrementAndGet() > capacity) {
+          evictEldest();
+        }
+      } else {
+        slot = existing;
+      }
+    }
+    slot.used = clock.incrementAndGet();
+    return slot.template;
+  }
+
+  /**
+   * Remove the least recently used templates until the cache fits its
+   * capacity.
+   */
+  private void evictEldest() {
+    while (size.get() > capacity) {
+      Map.Entry<Key, Slot> eldest = null;
+      for (Map.Entry<Key, Slot> candidate : templates.entrySet()) {
+        if (eldest == null
+            || candidate.getValue().used - eldest.getValue().used < 0) {
+          eldest = candidate;
+        }
+      }
+      if (eldest == null) {
+        return;
+      }
+      if (templates.remove(eldest.getKey(), eldest.getValue())) {
+        size.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * The template of the given stable lambda.
+   *
+   * @param lambda The lambda.
+   * @return The lambda's template or null if the lambda wasn't seen before.
+   */
+  public BaseTemplate stable(final Lambda<Object, Object> lambda) {
+    Memo memo = this.memo;
+    return memo != null && memo.lambda == lambda ? memo.template : null;
+  }
+
+  /**
+   * Save the template of the given stable lambda.
+   *
+   * @param lambda The lambda.
+   * @param template The lambda's template.
+   */
+  public void stable(final Lambda<Object, Object> lambda,
+      final BaseTemplate template) {
+    this.memo = new Memo(lambda, template);
+  }
+}
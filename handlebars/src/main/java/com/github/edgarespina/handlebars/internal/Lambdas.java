@@ -22,6 +22,7 @@ import java.io.IOException;
 import com.github.edgarespina.handlebars.Context;
 import com.github.edgarespina.handlebars.Handlebars;
 import com.github.edgarespina.handlebars.Lambda;
+import com.github.edgarespina.handlebars.StableLambda;
 import com.github.edgarespina.handlebars.Template;
 import com.github.edgarespina.handlebars.internal.Variable.Type;
 
@@ -46,33 +47,18 @@ final class Lambdas {
    * @param lambda The lambda.
    * @param scope The current scope.
    * @param template The current template.
+   * @param cache The lambda cache of the current template.
    * @return The resulting text.
    * @throws IOException If the resource cannot be loaded.
    */
   public static CharSequence merge(final Handlebars handlebars,
       final Lambda<Object, Object> lambda, final Context scope,
-      final Template template) throws IOException {
-    BaseTemplate result = compile(handlebars, lambda, scope, template);
+      final Template template, final LambdaCache cache) throws IOException {
+    BaseTemplate result =
+        compile(handlebars, lambda, scope, template, "{{", "}}", cache);
     return result.apply(scope);
   }
 
-  /**
-   * Compile the given lambda.
-   *
-   * @param handlebars The handlebars.
-   * @param lambda The lambda.
-   * @param scope The current scope.
-   * @param template The template.
-   * @return The resulting template.
-   * @throws IOException If the resource cannot be loaded.
-   */
-  public static BaseTemplate compile(final Handlebars handlebars,
-      final Lambda<Object, Object> lambda, final Context scope,
-      final Template template)
-      throws IOException {
-    return compile(handlebars, lambda, scope, template, "{{", "}}");
-  }
-
   /**
    * Compile the given lambda.
    *
@@ -82,24 +68,34 @@ final class Lambdas {
    * @param template The template.
    * @param startDelimiter The start delimiter.
    * @param endDelimiter The end delimiter.
+   * @param cache The lambda cache of the current template.
    * @return The resulting template.
    * @throws IOException If the resource cannot be loaded.
    */
   public static BaseTemplate compile(final Handlebars handlebars,
       final Lambda<Object, Object> lambda, final Context scope,
       final Template template, final String startDelimiter,
-      final String endDelimiter)
+      final String endDelimiter, final LambdaCache cache)
       throws IOException {
+    boolean stable = lambda instanceof StableLambda;
+    if (stable) {
+      BaseTemplate result = cache.stable(lambda);
+      if (result != null) {
+        return result;
+      }
+    }
     Object value = lambda.apply(scope, template);
     BaseTemplate result;
     if (value instanceof CharSequence) {
-      result =
-          (BaseTemplate) handlebars.compile(value.toString(), startDelimiter,
-              endDelimiter);
+      result = cache.compile(handlebars, value.toString(), startDelimiter,
+          endDelimiter);
     } else {
       // Don't escape no string values.
       result = new Variable(handlebars, "$$lambda", value, Type.TRIPLE_VAR);
     }
+    if (stable) {
+      cache.stable(lambda, result);
+    }
     return result;
   }
 }
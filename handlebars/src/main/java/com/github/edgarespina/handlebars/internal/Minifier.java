@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Set;
+
+import com.github.edgarespina.handlebars.BuiltInHelpers;
+import com.github.edgarespina.handlebars.Helper;
+
+/**
+ * Collapse the insignificant whitespace of the static text of a template:
+ * only the first blank of a run of blanks is kept. Blanks inside
+ * <code>&lt;pre&gt;</code>, <code>&lt;textarea&gt;</code> and
+ * <code>&lt;script&gt;</code> are kept as they are. Variables, partials and
+ * helper sections end a run; a section without a helper continues it when
+ * the text before the section and the section's body end with a blank. It
+ * runs after the standalone lines were removed, so it doesn't change the
+ * standalone rules of the mustache spec.
+ * The template is scanned in source order, a section whose body opens or
+ * closes one of these tags without the other is minified as if it were
+ * rendered once. A partial starts with the region of the text that includes
+ * it. The text of the template is kept as it was.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+class Minifier {
+
+  /**
+   * The tags with significant whitespace.
+   */
+  private static final String[] RAW = {"pre", "textarea", "script" };
+
+  /**
+   * The end tag of the current region with significant whitespace or null.
+   */
+  private String raw;
+
+  /**
+   * True if the last static text is a blank.
+   */
+  private boolean space;
+
+  /**
+   * The number of blanks removed.
+   */
+  private int nodes;
+
+  /**
+   * The number of chars removed.
+   */
+  private int chars;
+
+  /**
+   * Creates a new {@link Minifier}.
+   *
+   * @param raw The end tag of the region with significant whitespace the
+   *        template starts in or null.
+   */
+  public Minifier(final String raw) {
+    this.raw = raw;
+  }
+
+  /**
+   * Creates a new {@link Minifier}.
+   */
+  public Minifier() {
+    this(null);
+  }
+
+  /**
+   * Minify the given template.
+   *
+   * @param template The template.
+   * @return The minified template or null if it should be removed.
+   */
+  public BaseTemplate minify(final BaseTemplate template) {
+    if (template instanceof TemplateList) {
+      TemplateList sequence = (TemplateList) template;
+      Set<BaseTemplate> removed = Collections.newSetFromMap(
+          new IdentityHashMap<BaseTemplate, Boolean>());
+      for (int i = 0; i < sequence.size(); i++) {
+        BaseTemplate child = sequence.get(i);
+        BaseTemplate minified = minify(child);
+        if (minified == null) {
+          removed.add(child);
+        } else if (minified != child) {
+          sequence.set(i, minified);
+        }
+      }
+      sequence.removeAll(removed);
+      return sequence;
+    }
+    if (template instanceof Blank) {
+      if (raw == null && space) {
+        nodes++;
+        chars += template.text().length();
+        return null;
+      }
+      space = true;
+      return template;
+    }
+    boolean before = space;
+    space = false;
+    if (template instanceof Text) {
+      scan(template.text());
+    } else if (template instanceof Block) {
+      Block block = (Block) template;
+      BaseTemplate body = (BaseTemplate) block.body();
+      BaseTemplate inverse = (BaseTemplate) block.inverse();
+      boolean after = before && transparent(block);
+      if (body != null) {
+        // Each iteration follows the text before the section or the end of
+        // the previous iteration.
+        boolean end = endsWithBlank(body);
+        space = after && end;
+        block.body(keep(body, minify(body)));
+        after &= end;
+      }
+      if (inverse != null) {
+        space = before && transparent(block);
+        block.inverse(keep(inverse, minify(inverse)));
+        after &= endsWithBlank(inverse);
+      }
+      space = after;
+    }
+    return template;
+  }
+
+  /**
+   * Keep the text of a removed template.
+   *
+   * @param template The template.
+   * @param minified The minified template or null if it was removed.
+   * @return The minified template or a template without output.
+   */
+  private static BaseTemplate keep(final BaseTemplate template,
+      final BaseTemplate minified) {
+    return minified == null ? new Folded(template, null) : minified;
+  }
+
+  /**
+   * True if the section renders nothing but its body or its inverse: sections
+   * without a helper and sections of the built-in each, if, unless and with
+   * helpers. Lambdas are expected to render their body.
+   *
+   * @param block The section.
+   * @return True if the section renders nothing but its body or its inverse.
+   */
+  private static boolean transparent(final Block block) {
+    Helper<Object> helper = block.handlebars.helper(block.name());
+    return helper == null || helper == BuiltInHelpers.EACH
+        || helper == BuiltInHelpers.IF || helper == BuiltInHelpers.UNLESS
+        || helper == BuiltInHelpers.WITH;
+  }
+
+  /**
+   * True if the template ends with a blank.
+   *
+   * @param template The template.
+   * @return True if the template ends with a blank.
+   */
+  private static boolean endsWithBlank(final BaseTemplate template) {
+    if (template instanceof TemplateList) {
+      TemplateList sequence = (TemplateList) template;
+      int size = sequence.size();
+      return size > 0 && endsWithBlank(sequence.get(size - 1));
+    }
+    return template instanceof Blank;
+  }
+
+  /**
+   * Look for the start and end tags of the regions with significant
+   * whitespace.
+   *
+   * @param text A static text without whitespace.
+   */
+  void scan(final String text) {
+    String lower = text.toLowerCase(Locale.ENGLISH);
+    int from = 0;
+    while (from < lower.length()) {
+      if (raw == null) {
+        int start = -1;
+        for (String tag : RAW) {
+          int index = start(lower, tag, from);
+          if (index >= 0 && (start < 0 || index < start)) {
+            start = index;
+            raw = "</" + tag;
+          }
+        }
+        if (start < 0) {
+          return;
+        }
+        from = start + raw.length();
+      } else {
+        int end = lower.indexOf(raw, from);
+        if (end < 0) {
+          return;
+        }
+        from = end + raw.length();
+        raw = null;
+      }
+    }
+  }
+
+  /**
+   * Find a start tag.
+   *
+   * @param text The text.
+   * @param tag The tag's name.
+   * @param from The start offset.
+   * @return The start tag's offset or -1.
+   */
+  private static int start(final String text, final String tag,
+      final int from) {
+    String open = "<" + tag;
+    int index = text.indexOf(open, from);
+    while (index >= 0) {
+      int next = index + open.length();
+      if (next == text.length()
+          || !Character.isLetterOrDigit(text.charAt(next))) {
+        return index;
+      }
+      index = text.indexOf(open, next);
+    }
+    return -1;
+  }
+
+  /**
+   * The end tag of the current region with significant whitespace.
+   *
+   * @return The end tag of the current region or null.
+   */
+  public String raw() {
+    return raw;
+  }
+
+  /**
+   * The number of blanks removed.
+   *
+   * @return The number of blanks removed.
+   */
+  public int nodes() {
+    return nodes;
+  }
+
+  /**
+   * The number of chars removed from the output of each rendering.
+   *
+   * @return The number of chars removed.
+   */
+  public int chars() {
+    return chars;
+  }
+}
@@ -137,6 +137,17 @@ enum ParamType {
     return get(param).doParse(context, param);
   }
 
+  /**
+   * True if the given parameter is a reference to a value in the context
+   * stack.
+   *
+   * @param param The candidate parameter.
+   * @return True if the given parameter is a reference.
+   */
+  public static boolean isReference(final Object param) {
+    return get(param) == REFERENCE;
+  }
+
   /**
    * Find a strategy.
    *
@@ -59,6 +59,7 @@ import org.parboiled.support.Var;
 
 import com.github.edgarespina.handlebars.Handlebars;
 import com.github.edgarespina.handlebars.HandlebarsException;
+import com.github.edgarespina.handlebars.RenderListener;
 import com.github.edgarespina.handlebars.Template;
 import com.github.edgarespina.handlebars.TemplateLoader;
 import com.github.edgarespina.handlebars.internal.Variable.Type;
@@ -209,30 +210,41 @@ public class Parser extends BaseParser<BaseTemplate> {
 
   protected final String filename;
 
+  protected final SourceFile file;
+
   protected final LinkedList<Stacktrace> stacktraceList;
 
   protected int noffset = 0;
 
+  protected final String raw;
+
+  protected Minifier scanner;
+
+  protected int scanned;
+
   Parser(final Handlebars handlebars, final String filename,
       final Map<String, Partial> partials, final String startDelimiter,
-      final String endDelimiter, final LinkedList<Stacktrace> stacktrace) {
+      final String endDelimiter, final LinkedList<Stacktrace> stacktrace,
+      final String raw) {
     this.handlebars = handlebars;
     this.filename =
         handlebars == null ? null : handlebars.getTemplateLoader().resolve(
             filename);
+    this.file = new SourceFile(this.filename);
     this.partials =
         partials == null ? new HashMap<String, Partial>() : partials;
     this.startDelimiter = startDelimiter;
     this.endDelimiter = endDelimiter;
     this.stacktraceList = stacktrace;
+    this.raw = raw;
   }
 
   private static Parser create(final Handlebars handlebars,
       final String filename, final Map<String, Partial> partials,
       final String startDelimiter, final String endDelimiter,
-      final LinkedList<Stacktrace> stacktrace) {
+      final LinkedList<Stacktrace> stacktrace, final String raw) {
     return Parboiled.createParser(Parser.class, handlebars, filename, partials,
-        startDelimiter, endDelimiter, stacktrace);
+        startDelimiter, endDelimiter, stacktrace, raw);
   }
 
   public static Parser create(final Handlebars handlebars,
@@ -240,13 +252,17 @@ public class Parser extends BaseParser<BaseTemplate> {
       final String startDelimiter,
       final String endDelimiter) {
     return create(handlebars, filename, null, startDelimiter, endDelimiter,
-        new LinkedList<Stacktrace>());
+        new LinkedList<Stacktrace>(), null);
   }
 
   public static void initialize() {
     create(null, null, null, null);
   }
 
+  public String filename() {
+    return filename;
+  }
+
   public Template parse(final Reader reader) throws IOException {
     try {
       return parse(toString(reader));
@@ -262,6 +278,20 @@ public class Parser extends BaseParser<BaseTemplate> {
   }
 
   public Template parse(final String input) throws IOException {
+    RenderListener listener =
+        handlebars == null ? null : handlebars.getRenderListener();
+    if (listener == null) {
+      return doParse(input);
+    }
+    long start = System.nanoTime();
+    try {
+      return doParse(input);
+    } finally {
+      listener.parse(filename, input.length(), System.nanoTime() - start);
+    }
+  }
+
+  private Template doParse(final String input) throws IOException {
     try {
       ParseRunner<BaseTemplate> runner =
           new SafeReportingParseRunner(template());
@@ -275,10 +305,27 @@ public class Parser extends BaseParser<BaseTemplate> {
       }
       TemplateList sequence = (TemplateList) result.resultValue;
       removeBlanks(sequence);
+      if (handlebars != null) {
+        if (handlebars.isMinify()) {
+          minify(sequence);
+        }
+        fold(sequence);
+      }
+      BaseTemplate root = sequence;
       if (sequence.size() == 1) {
-        return sequence.iterator().next();
+        BaseTemplate child = sequence.iterator().next();
+        // Partials are shared, they can't be the root of this file.
+        if (!(child instanceof Partial)) {
+          root = child;
+        }
       }
-      return sequence;
+      if (root.file() == null) {
+        root.file(file);
+      }
+      if (handlebars != null && handlebars.isFlatten()) {
+        root = new Program(root).file(root.file());
+      }
+      return root.owner(handlebars);
     } catch (ParserRuntimeException ex) {
       Throwable cause = ex.getCause();
       if (cause instanceof HandlebarsException) {
@@ -364,7 +411,7 @@ public class Parser extends BaseParser<BaseTemplate> {
             TestNot(spaceNoAction()),
             TestNot(nlNoAction()),
             ANY),
-        add(new Text(match())));
+        add(new Text(intern(match()))));
   }
 
   @Label("variable")
@@ -420,7 +467,7 @@ public class Parser extends BaseParser<BaseTemplate> {
         reset(hash),
         paramOrHash(params, hash),
         add(new Variable(handlebars, var.get().text, type, params, hash)
-            .filename(filename).position(var.get().position.line,
+            .file(file).position(var.get().position.line,
                 var.get().position.column)));
   }
 
@@ -475,7 +522,12 @@ public class Parser extends BaseParser<BaseTemplate> {
           @Override
           public boolean run(final Context<BaseTemplate> context) {
             String uri = uriVar.get();
-            Partial partial = partials.get(uri);
+            // Partials inside <pre> and friends are minified apart.
+            String rawAt = handlebars.isMinify()
+                ? raw(context.getInputBuffer(), context.getCurrentIndex())
+                : null;
+            String key = rawAt == null ? uri : uri + " " + rawAt;
+            Partial partial = partials.get(key);
             TemplateLoader loader = handlebars.getTemplateLoader();
             if (partial == null) {
               try {
@@ -486,11 +538,14 @@ public class Parser extends BaseParser<BaseTemplate> {
                 Reader reader = loader.load(URI.create(uri));
                 Parser parser =
                     create(handlebars, uri, partials, startDelimiter,
-                        endDelimiter, stacktraceList);
+                        endDelimiter, stacktraceList, rawAt);
                 // Avoid stack overflow exceptions
-                partial = new Partial();
-                partials.put(uri, partial);
-                Template template = parser.parse(reader);
+                partial = new Partial(handlebars);
+                partial.file(file).position(pos.line, pos.column);
+                partials.put(key, partial);
+                BaseTemplate template = (BaseTemplate) parser.parse(reader);
+                // Partials are reported by the partial, not as templates.
+                template.owner(null);
                 partial.template(uri, template);
                 stacktraceList.removeLast();
               } catch (IOException ex) {
@@ -525,8 +580,8 @@ public class Parser extends BaseParser<BaseTemplate> {
                 hash)
                 .startDelimiter(startDelimiter)
                 .endDelimiter(endDelimiter)
+                .file(file)
                 .position(name.get().position.line, name.get().position.column)
-                .filename(filename)
             ),
         add(section.get()),
         body(),
@@ -685,7 +740,8 @@ public class Parser extends BaseParser<BaseTemplate> {
   @MemoMismatches
   @Label("boolean")
   Rule bool(final Var<Object> var) {
-    return Sequence(FirstOf(String("true"), String("false")), var.set(match()));
+    return Sequence(FirstOf(String("true"), String("false")),
+        var.set(Boolean.valueOf(match())));
   }
 
   @MemoMismatches
@@ -716,7 +772,7 @@ public class Parser extends BaseParser<BaseTemplate> {
     return Sequence(spaceNoAction(), new Action<BaseTemplate>() {
       @Override
       public boolean run(final Context<BaseTemplate> context) {
-        return add(new Blank(context.getMatch()));
+        return add(new Blank(intern(context.getMatch())));
       }
     });
   }
@@ -731,7 +787,7 @@ public class Parser extends BaseParser<BaseTemplate> {
     return Sequence(nlNoAction(), new Action<BaseTemplate>() {
       @Override
       public boolean run(final Context<BaseTemplate> context) {
-        return add(new Blank(context.getMatch()));
+        return add(new Blank(intern(context.getMatch())));
       }
     }, sync());
   }
@@ -762,6 +818,10 @@ public class Parser extends BaseParser<BaseTemplate> {
     return true;
   }
 
+  String intern(final String text) {
+    return handlebars == null ? text : handlebars.intern(text);
+  }
+
   void removeBlanks(final BaseTemplate head) {
     for (BaseTemplate blank : ignored) {
       head.remove(blank);
@@ -770,6 +830,47 @@ public class Parser extends BaseParser<BaseTemplate> {
     ignored.clear();
   }
 
+  String raw(final InputBuffer input, final int index) {
+    if (scanner == null || index < scanned) {
+      scanner = new Minifier(raw);
+      scanned = 0;
+    }
+    scanner.scan(input.extract(scanned, index));
+    scanned = index;
+    return scanner.raw();
+  }
+
+  void minify(final TemplateList sequence) {
+    Minifier minifier = new Minifier(raw);
+    minifier.minify(sequence);
+    Handlebars.debug("%s: %s blanks and %s chars removed", filename,
+        minifier.nodes(), minifier.chars());
+  }
+
+  BaseTemplate fold(final BaseTemplate node) {
+    if (node instanceof TemplateList) {
+      TemplateList sequence = (TemplateList) node;
+      for (int i = 0; i < sequence.size(); i++) {
+        sequence.set(i, fold(sequence.get(i)));
+      }
+      return sequence;
+    }
+    if (node instanceof Block) {
+      Block block = (Block) node;
+      if (block.body() != null) {
+        block.body(fold((BaseTemplate) block.body()));
+      }
+      if (block.inverse() != null) {
+        block.inverse(fold((BaseTemplate) block.inverse()));
+      }
+      return block.fold();
+    }
+    if (node instanceof Variable) {
+      return ((Variable) node).fold();
+    }
+    return node;
+  }
+
   @DontLabel
   Rule comment() {
     return Sequence(startDelimiter(), '!',
@@ -812,9 +913,10 @@ public class Parser extends BaseParser<BaseTemplate> {
   static String toString(final Reader reader)
       throws IOException {
     StringBuilder buffer = new StringBuilder(1024 * 4);
-    int ch;
-    while ((ch = reader.read()) != -1) {
-      buffer.append((char) ch);
+    char[] chunk = new char[1024 * 4];
+    int len;
+    while ((len = reader.read(chunk)) != -1) {
+      buffer.append(chunk, 0, len);
     }
     buffer.trimToSize();
     return buffer.toString();
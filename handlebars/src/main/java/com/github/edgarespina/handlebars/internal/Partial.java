@@ -21,8 +21,11 @@ import static org.parboiled.common.Preconditions.checkNotNull;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Set;
 
 import com.github.edgarespina.handlebars.Context;
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.RenderListener;
 import com.github.edgarespina.handlebars.Template;
 
 /**
@@ -46,6 +49,21 @@ class Partial extends BaseTemplate {
    */
   private String path;
 
+  /**
+   * The handlebars object. Required.
+   */
+  private final Handlebars handlebars;
+
+  /**
+   * Creates a new {@link Partial}.
+   *
+   * @param handlebars The handlebars object. Required.
+   */
+  public Partial(final Handlebars handlebars) {
+    this.handlebars =
+        checkNotNull(handlebars, "The handlebars object is required.");
+  }
+
   /**
    * Set the partial template.
    *
@@ -62,7 +80,35 @@ class Partial extends BaseTemplate {
   @Override
   public void merge(final Context scope, final Writer writer)
       throws IOException {
-    template.apply(scope, writer);
+    RenderListener listener = handlebars.getRenderListener();
+    if (listener == null) {
+      template.apply(scope, writer);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      template.apply(scope, writer);
+    } finally {
+      listener.partial(path, filename(), line(),
+          System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  protected void bind(final Schema schema, final Set<String> visited) {
+    if (visited.add(path + " " + schema.signature())) {
+      ((BaseTemplate) template).bind(schema, visited);
+    }
+  }
+
+  @Override
+  void size(final Footprint footprint) {
+    super.size(footprint);
+    footprint.fields(3);
+    footprint.string(path);
+    if (template instanceof BaseTemplate) {
+      ((BaseTemplate) template).measure(footprint);
+    }
   }
 
   @Override
@@ -0,0 +1,411 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import static org.parboiled.common.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import com.github.edgarespina.handlebars.Context;
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.Lambda;
+import com.github.edgarespina.handlebars.Template;
+
+/**
+ * A template lowered into a linear instruction array. Static text is merged
+ * and written as is, sections without a helper are run as jumps over the
+ * array with an explicit scope stack, branches folded at compile time are
+ * inlined and everything else (variables, partials, helpers and lambdas) is
+ * merged by the original node.
+ * Rendering doesn't recurse over the template tree; errors are reported with
+ * the position of the node of the failing instruction. Binding, removing
+ * children and the text version of the template are delegated to the
+ * original tree.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+class Program extends BaseTemplate {
+
+  /**
+   * Write a static text: <code>TEXT constant</code>.
+   */
+  static final int TEXT = 0;
+
+  /**
+   * Merge a node: <code>CALL constant</code>.
+   */
+  static final int CALL = 1;
+
+  /**
+   * Start a section: <code>SECTION constant else end</code>. The body starts
+   * at the next instruction. Empty sections jump to the else label, sections
+   * with a helper or a lambda are merged by the block and jump to the end
+   * label. Others push a scope (or a loop) and run the body.
+   */
+  static final int SECTION = 2;
+
+  /**
+   * End a section body: <code>END section</code>. Loops jump back to the body
+   * while there are elements, otherwise the scope is popped and it jumps to
+   * the end label of the section.
+   */
+  static final int END = 3;
+
+  /**
+   * Run a template folded by a helper: <code>FOLD constant end</code>. The
+   * folded value starts at the next instruction. If another helper was
+   * registered since, the original node is merged and it jumps to the end
+   * label.
+   */
+  static final int FOLD = 4;
+
+  /**
+   * The original template.
+   */
+  private final BaseTemplate tree;
+
+  /**
+   * The instructions and their operands.
+   */
+  private final int[] code;
+
+  /**
+   * The static texts and nodes of the instructions.
+   */
+  private final Object[] constants;
+
+  /**
+   * The max number of nested sections.
+   */
+  private final int depth;
+
+  /**
+   * Creates a new {@link Program}.
+   *
+   * @param tree The original template. Required.
+   */
+  public Program(final BaseTemplate tree) {
+    this.tree = checkNotNull(tree, "The template is required.");
+    Assembler assembler = new Assembler();
+    assembler.lower(tree, 0);
+    assembler.flush();
+    this.code = Arrays.copyOf(assembler.code, assembler.size);
+    this.constants = assembler.constants.toArray();
+    this.depth = assembler.depth;
+  }
+
+  @Override
+  protected void merge(final Context context, final Writer writer)
+      throws IOException {
+    final int[] code = this.code;
+    final Object[] constants = this.constants;
+    Context[] scopes = new Context[depth];
+    Iterator<?>[] loops = new Iterator<?>[depth];
+    int top = -1;
+    Context scope = context;
+    int pc = 0;
+    try {
+      while (pc < code.length) {
+        switch (code[pc]) {
+          case TEXT:
+            writer.append((String) constants[code[pc + 1]]);
+            pc += 2;
+            break;
+          case CALL:
+            ((BaseTemplate) constants[code[pc + 1]]).merge(scope, writer);
+            pc += 2;
+            break;
+          case SECTION:
+            Block block = (Block) constants[code[pc + 1]];
+            String name = block.name();
+            if (block.helper(name) != null) {
+              block.merge(scope, writer);
+              pc = code[pc + 3];
+              break;
+            }
+            Object value = block.transform(block.value(scope, name));
+            if (block.inverted() || value instanceof Boolean) {
+              // unless and if
+              if (Handlebars.Utils.isEmpty(value) == block.inverted()) {
+                scopes[++top] = scope;
+                pc += 4;
+              } else {
+                pc = code[pc + 2];
+              }
+            } else if (value instanceof Iterable) {
+              // each
+              if (Handlebars.Utils.isEmpty(value)) {
+                pc = code[pc + 2];
+              } else {
+                scopes[++top] = scope;
+                loops[top] = ((Iterable<?>) value).iterator();
+                // Let END pick the first element.
+                pc = code[pc + 2] - 2;
+              }
+            } else if (value instanceof Lambda) {
+              block.merge(scope, writer);
+              pc = code[pc + 3];
+            } else if (value == null) {
+              pc = code[pc + 3];
+            } else {
+              // with
+              scopes[++top] = scope;
+              scope = value instanceof Context ? (Context) value
+                  : Context.newContext(Context.newContext(scope, value),
+                      value);
+              pc += 4;
+            }
+            break;
+          case END:
+            int section = code[pc + 1];
+            Iterator<?> loop = loops[top];
+            if (loop != null) {
+              Object element = null;
+              while (element == null && loop.hasNext()) {
+                element = loop.next();
+              }
+              if (element != null) {
+                scope = element instanceof Context ? (Context) element
+                    : Context.newContext(scopes[top], element);
+                pc = section + 4;
+                break;
+              }
+              loops[top] = null;
+            }
+            scope = scopes[top];
+            scopes[top--] = null;
+            pc = code[section + 3];
+            break;
+          case FOLD:
+            Folded folded = (Folded) constants[code[pc + 1]];
+            if (folded.registered()) {
+              pc += 3;
+            } else {
+              folded.merge(scope, writer);
+              pc = code[pc + 2];
+            }
+            break;
+          default:
+            throw new IllegalStateException("Bad instruction: " + code[pc]);
+        }
+      }
+    } catch (Exception ex) {
+      throw node(pc).error(ex);
+    }
+  }
+
+  /**
+   * The node of an instruction, for reporting errors.
+   *
+   * @param pc The instruction's address.
+   * @return The node of the instruction or this template for static text.
+   */
+  private BaseTemplate node(final int pc) {
+    switch (code[pc]) {
+      case CALL:
+      case SECTION:
+      case FOLD:
+        return (BaseTemplate) constants[code[pc + 1]];
+      case END:
+        return node(code[pc + 1]);
+      default:
+        return this;
+    }
+  }
+
+  @Override
+  public boolean remove(final Template child) {
+    return tree.remove(child);
+  }
+
+  @Override
+  protected void bind(final Schema schema, final Set<String> visited) {
+    tree.bind(schema, visited);
+  }
+
+  @Override
+  void moveLines(final int delta) {
+    super.moveLines(delta);
+    tree.moveLines(delta);
+  }
+
+  @Override
+  void size(final Footprint footprint) {
+    super.size(footprint);
+    // tree, code, constants and depth.
+    footprint.fields(4);
+    footprint.array(code.length, 4);
+    footprint.array(constants.length, 4);
+    for (Object constant : constants) {
+      if (constant instanceof String) {
+        footprint.text((String) constant);
+      }
+    }
+    tree.measure(footprint);
+  }
+
+  @Override
+  public String text() {
+    return tree.text();
+  }
+
+  /**
+   * The original template.
+   *
+   * @return The original template.
+   */
+  BaseTemplate tree() {
+    return tree;
+  }
+
+  /**
+   * The instructions and their operands.
+   *
+   * @return The instructions and their operands.
+   */
+  int[] code() {
+    return code;
+  }
+
+  /**
+   * Lower a template tree into instructions.
+   *
+   * @author edgar.espina
+   * @since 0.2.2
+   */
+  private static class Assembler {
+
+    /**
+     * The instructions.
+     */
+    private int[] code = new int[16];
+
+    /**
+     * The number of instructions and operands.
+     */
+    private int size;
+
+    /**
+     * The constants.
+     */
+    private final List<Object> constants = new ArrayList<Object>();
+
+    /**
+     * The text that hasn't been emitted yet.
+     */
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * The max number of nested sections.
+     */
+    private int depth;
+
+    /**
+     * Lower a template.
+     *
+     * @param template The template.
+     * @param level The number of enclosing sections.
+     */
+    public void lower(final BaseTemplate template, final int level) {
+      if (template instanceof TemplateList) {
+        for (BaseTemplate child : (TemplateList) template) {
+          lower(child, level);
+        }
+      } else if (template instanceof Folded) {
+        Folded folded = (Folded) template;
+        int fold = -1;
+        if (folded.helper() != null) {
+          flush();
+          fold = emit(FOLD, constant(folded), 0);
+        }
+        if (folded.value() != null) {
+          lower(folded.value(), level);
+        }
+        if (fold >= 0) {
+          flush();
+          code[fold + 2] = size;
+        }
+      } else if (template instanceof Text) {
+        text.append(template.text());
+      } else if (template instanceof Block) {
+        flush();
+        Block block = (Block) template;
+        depth = Math.max(depth, level + 1);
+        int section = emit(SECTION, constant(block), 0, 0);
+        if (block.body() != null) {
+          lower((BaseTemplate) block.body(), level + 1);
+        }
+        flush();
+        emit(END, section);
+        code[section + 2] = size;
+        if (block.inverse() != null) {
+          lower((BaseTemplate) block.inverse(), level);
+        }
+        flush();
+        code[section + 3] = size;
+      } else {
+        flush();
+        emit(CALL, constant(template));
+      }
+    }
+
+    /**
+     * Emit the pending text, if any.
+     */
+    public void flush() {
+      if (text.length() > 0) {
+        emit(TEXT, constant(text.toString()));
+        text.setLength(0);
+      }
+    }
+
+    /**
+     * Add a constant.
+     *
+     * @param constant The constant.
+     * @return The constant index.
+     */
+    private int constant(final Object constant) {
+      constants.add(constant);
+      return constants.size() - 1;
+    }
+
+    /**
+     * Emit an instruction.
+     *
+     * @param instruction The instruction and its operands.
+     * @return The address of the instruction.
+     */
+    private int emit(final int... instruction) {
+      if (size + instruction.length > code.length) {
+        code = Arrays.copyOf(code, (size + instruction.length) * 2);
+      }
+      System.arraycopy(instruction, 0, code, size, instruction.length);
+      int address = size;
+      size += instruction.length;
+      return address;
+    }
+  }
+}
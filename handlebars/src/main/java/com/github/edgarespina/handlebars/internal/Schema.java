@@ -0,0 +1,422 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import com.github.edgarespina.handlebars.Lambda;
+import com.github.edgarespina.handlebars.context.JavaBeanValueResolver;
+
+/**
+ * The model types of a template while it's being bound with
+ * {@link BaseTemplate#bind(Class)}. It mirrors the context stack: every
+ * section that changes the context pushes a new schema. A schema without a
+ * type accepts any name, like maps or helpers do at runtime. Direct accessors
+ * are collected while binding and installed by {@link #install()}, once every
+ * path was resolved.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+final class Schema {
+
+  /**
+   * A direct accessor for a path that was resolved at bind time.
+   *
+   * @author edgar.espina
+   * @since 0.2.2
+   */
+  static final class Accessor {
+
+    /**
+     * The model type.
+     */
+    private final Class<?> type;
+
+    /**
+     * The read methods, one per path segment.
+     */
+    private final Method[] methods;
+
+    /**
+     * Creates a new {@link Accessor}.
+     *
+     * @param type The model type.
+     * @param methods The read methods, one per path segment.
+     */
+    private Accessor(final Class<?> type, final Method[] methods) {
+      this.type = type;
+      this.methods = methods;
+    }
+
+    /**
+     * Read the path from the given model.
+     *
+     * @param model The model.
+     * @return The path value, or null if the model isn't of the bound type or
+     *         a segment is null.
+     */
+    public Object get(final Object model) {
+      if (!type.isInstance(model)) {
+        return null;
+      }
+      Object value = model;
+      for (int i = 0; i < methods.length && value != null; i++) {
+        try {
+          value = methods[i].invoke(value);
+        } catch (Exception ex) {
+          throw new IllegalStateException(
+              "Shouldn't be illegal to access method '"
+                  + methods[i].getName() + "'", ex);
+        }
+      }
+      return value;
+    }
+  }
+
+  /**
+   * The resolved type of a path.
+   *
+   * @author edgar.espina
+   * @since 0.2.2
+   */
+  static final class Path {
+
+    /**
+     * A path whose type is unknown.
+     */
+    static final Path DYNAMIC = new Path(null, null);
+
+    /**
+     * The path's type or null if it's unknown.
+     */
+    private final Type type;
+
+    /**
+     * The direct accessor or null.
+     */
+    private final Accessor accessor;
+
+    /**
+     * Creates a new {@link Path}.
+     *
+     * @param type The path's type or null if it's unknown.
+     * @param accessor The direct accessor or null.
+     */
+    private Path(final Type type, final Accessor accessor) {
+      this.type = type;
+      this.accessor = accessor;
+    }
+
+    /**
+     * The path's type.
+     *
+     * @return The path's type or null if it's unknown.
+     */
+    public Type type() {
+      return type;
+    }
+
+    /**
+     * The direct accessor. Only paths that start in the current model have
+     * one.
+     *
+     * @return The direct accessor or null.
+     */
+    public Accessor accessor() {
+      return accessor;
+    }
+  }
+
+  /**
+   * Find JavaBean properties.
+   */
+  private static final JavaBeanValueResolver BEANS =
+      new JavaBeanValueResolver();
+
+  /**
+   * The model type or null if it's unknown.
+   */
+  private final Class<?> type;
+
+  /**
+   * The parent schema or null.
+   */
+  private final Schema parent;
+
+  /**
+   * The direct accessors found so far, shared by the whole schema stack.
+   */
+  private final Map<HelperResolver, Accessor> accessors;
+
+  /**
+   * Creates a new {@link Schema}.
+   *
+   * @param type The model type or null if it's unknown.
+   * @param parent The parent schema or null.
+   */
+  private Schema(final Class<?> type, final Schema parent) {
+    this.type = type;
+    this.parent = parent;
+    this.accessors = parent == null
+        ? new IdentityHashMap<HelperResolver, Accessor>()
+        : parent.accessors;
+  }
+
+  /**
+   * Creates a root schema.
+   *
+   * @param type The model type. Required.
+   * @return A root schema.
+   */
+  public static Schema root(final Class<?> type) {
+    return new Schema(typed(type), null);
+  }
+
+  /**
+   * Push a new model type.
+   *
+   * @param type The model type or null if it's unknown.
+   * @return A child schema.
+   */
+  public Schema child(final Type type) {
+    return new Schema(typed(rawType(type)), this);
+  }
+
+  /**
+   * Push a model type that is unknown, for example: the context of a custom
+   * helper.
+   *
+   * @return A child schema.
+   */
+  public Schema dynamic() {
+    return new Schema(null, this);
+  }
+
+  /**
+   * Save the direct accessor of a template, it's installed by
+   * {@link #install()}.
+   *
+   * @param template The template. Required.
+   * @param accessor The direct accessor or null.
+   */
+  public void accessor(final HelperResolver template,
+      final Accessor accessor) {
+    if (accessor != null) {
+      accessors.put(template, accessor);
+    }
+  }
+
+  /**
+   * Install the direct accessors found while binding. It should be called
+   * once every path was resolved, so a failed binding changes nothing.
+   */
+  public void install() {
+    for (Map.Entry<HelperResolver, Accessor> entry : accessors.entrySet()) {
+      entry.getKey().accessor(entry.getValue());
+    }
+  }
+
+  /**
+   * Resolve a path against the schema. The path is looked up in the current
+   * model first, then in the parent models.
+   *
+   * @param name The path. Required.
+   * @return The resolved path.
+   * @throws IllegalArgumentException If the path doesn't exist.
+   */
+  public Path lookup(final String name) {
+    if (".".equals(name) || "this".equals(name)) {
+      return type == null ? Path.DYNAMIC : new Path(type, null);
+    }
+    String[] path = toPath(name);
+    if (path.length == 0) {
+      return Path.DYNAMIC;
+    }
+    for (String segment : path) {
+      if (segment.equals("this") || segment.startsWith("/")) {
+        return Path.DYNAMIC;
+      }
+    }
+    Schema schema = this;
+    while (schema != null) {
+      if (schema.type == null) {
+        return Path.DYNAMIC;
+      }
+      if (BEANS.member(schema.type, path[0]) != null) {
+        return schema.lookup(path, name, schema == this);
+      }
+      schema = schema.parent;
+    }
+    throw new IllegalArgumentException("unknown property '" + path[0]
+        + "' in " + this);
+  }
+
+  /**
+   * Resolve all the segments of a path in this schema.
+   *
+   * @param path The path segments.
+   * @param name The path.
+   * @param direct True, if an accessor should be created.
+   * @return The resolved path.
+   */
+  private Path lookup(final String[] path, final String name,
+      final boolean direct) {
+    List<Method> methods = new ArrayList<Method>(path.length);
+    Type current = type;
+    for (String segment : path) {
+      Class<?> owner = typed(rawType(current));
+      if (owner == null) {
+        return Path.DYNAMIC;
+      }
+      Method method = BEANS.member(owner, segment);
+      if (method == null) {
+        throw new IllegalArgumentException("unknown property '" + segment
+            + "' in " + owner.getName() + " (path '" + name + "')");
+      }
+      methods.add(method);
+      current = method.getGenericReturnType();
+    }
+    Accessor accessor = null;
+    if (direct) {
+      accessor = new Accessor(type, methods.toArray(new Method[0]));
+    }
+    return new Path(current, accessor);
+  }
+
+  /**
+   * The element type of an array or {@link Iterable} type.
+   *
+   * @param type The collection type or null.
+   * @return The element type or null if it's unknown.
+   */
+  public static Type elementType(final Type type) {
+    if (type instanceof Class && ((Class<?>) type).isArray()) {
+      return ((Class<?>) type).getComponentType();
+    }
+    if (type instanceof GenericArrayType) {
+      return ((GenericArrayType) type).getGenericComponentType();
+    }
+    if (type instanceof ParameterizedType) {
+      ParameterizedType parameterized = (ParameterizedType) type;
+      Type[] arguments = parameterized.getActualTypeArguments();
+      if (arguments.length == 1 && isIterable(parameterized)) {
+        return arguments[0];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * True if the type is an array or {@link Iterable}.
+   *
+   * @param type The candidate type or null.
+   * @return True if the type is an array or {@link Iterable}.
+   */
+  public static boolean isIterable(final Type type) {
+    if (type instanceof GenericArrayType) {
+      return true;
+    }
+    Class<?> raw = rawType(type);
+    return raw != null
+        && (raw.isArray() || Iterable.class.isAssignableFrom(raw));
+  }
+
+  /**
+   * True if the type is a boolean.
+   *
+   * @param type The candidate type or null.
+   * @return True if the type is a boolean.
+   */
+  public static boolean isBoolean(final Type type) {
+    return type == boolean.class || type == Boolean.class;
+  }
+
+  /**
+   * The raw class of a type.
+   *
+   * @param type The type or null.
+   * @return The raw class or null if it's unknown.
+   */
+  private static Class<?> rawType(final Type type) {
+    if (type instanceof Class) {
+      return (Class<?>) type;
+    }
+    if (type instanceof ParameterizedType) {
+      return rawType(((ParameterizedType) type).getRawType());
+    }
+    if (type instanceof WildcardType) {
+      return rawType(((WildcardType) type).getUpperBounds()[0]);
+    }
+    return null;
+  }
+
+  /**
+   * Filter out the classes that are resolved dynamically.
+   *
+   * @param type The candidate class or null.
+   * @return The class or null if its properties are resolved at runtime.
+   */
+  private static Class<?> typed(final Class<?> type) {
+    if (type == null || type == Object.class || type.isPrimitive()
+        || Map.class.isAssignableFrom(type)
+        || Lambda.class.isAssignableFrom(type)) {
+      return null;
+    }
+    return type;
+  }
+
+  /**
+   * Split the path by '.', like the context stack does.
+   *
+   * @param name The path.
+   * @return The path segments.
+   */
+  private static String[] toPath(final String name) {
+    StringTokenizer tokenizer = new StringTokenizer(name, ".");
+    String[] path = new String[tokenizer.countTokens()];
+    int i = 0;
+    while (tokenizer.hasMoreTokens()) {
+      path[i++] = tokenizer.nextToken();
+    }
+    return path;
+  }
+
+  /**
+   * A unique key of this schema and its parents.
+   *
+   * @return A unique key of this schema and its parents.
+   */
+  public String signature() {
+    return parent == null ? toString() : this + " < " + parent.signature();
+  }
+
+  @Override
+  public String toString() {
+    return type == null ? "?" : type.getName();
+  }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import com.github.edgarespina.handlebars.Handlebars;
+
+/**
+ * The data shared by all the nodes of a template file: the file's name, the
+ * root template and the positions that don't fit in a node.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+final class SourceFile {
+
+  /**
+   * The file's name.
+   */
+  final String filename;
+
+  /**
+   * The root template or null.
+   */
+  private BaseTemplate root;
+
+  /**
+   * The handlebars object that reports the rendering time of the root.
+   */
+  private Handlebars owner;
+
+  /**
+   * The model type the root template is bound to or null.
+   */
+  private Class<?> modelType;
+
+  /**
+   * The lines of the positions that don't fit in a node.
+   */
+  private int[] lines = {};
+
+  /**
+   * The columns of the positions that don't fit in a node.
+   */
+  private int[] columns = {};
+
+  /**
+   * The number of positions in the table.
+   */
+  private int size;
+
+  /**
+   * Creates a new {@link SourceFile}.
+   *
+   * @param filename The file's name.
+   */
+  public SourceFile(final String filename) {
+    this.filename = filename;
+  }
+
+  /**
+   * Set the root template.
+   *
+   * @param root The root template.
+   * @param owner The handlebars object that reports the rendering time of the
+   *        root. Optional.
+   */
+  public void root(final BaseTemplate root, final Handlebars owner) {
+    this.root = root;
+    this.owner = owner;
+  }
+
+  /**
+   * The handlebars object that reports the rendering time of a template.
+   *
+   * @param template The template.
+   * @return The handlebars object or null if the template isn't the root.
+   */
+  public Handlebars owner(final BaseTemplate template) {
+    return root == template ? owner : null;
+  }
+
+  /**
+   * Bind the root template to a model type, once. Binding it again to the
+   * same type does nothing.
+   *
+   * @param template The root template. Required.
+   * @param modelType The model type. Required.
+   * @throws IllegalStateException If the template is bound to another type.
+   */
+  public synchronized void bind(final BaseTemplate template,
+      final Class<?> modelType) {
+    if (this.modelType == modelType) {
+      return;
+    }
+    if (this.modelType != null) {
+      throw new IllegalStateException("'" + filename + "' is bound to: "
+          + this.modelType.getName() + ", can't bind it to: "
+          + modelType.getName());
+    }
+    Schema schema = Schema.root(modelType);
+    template.bind(schema, new HashSet<String>());
+    schema.install();
+    this.modelType = modelType;
+  }
+
+  /**
+   * Save a position.
+   *
+   * @param line The line.
+   * @param column The column.
+   * @return The position's index.
+   */
+  public int add(final int line, final int column) {
+    if (size == lines.length) {
+      int capacity = Math.max(4, size * 2);
+      lines = Arrays.copyOf(lines, capacity);
+      columns = Arrays.copyOf(columns, capacity);
+    }
+    lines[size] = line;
+    columns[size] = column;
+    return size++;
+  }
+
+  /**
+   * The line of a saved position.
+   *
+   * @param index The position's index.
+   * @return The line.
+   */
+  public int line(final int index) {
+    return lines[index];
+  }
+
+  /**
+   * The column of a saved position.
+   *
+   * @param index The position's index.
+   * @return The column.
+   */
+  public int column(final int index) {
+    return columns[index];
+  }
+
+  /**
+   * Add this source to the footprint.
+   *
+   * @param footprint The footprint. Required.
+   */
+  void size(final Footprint footprint) {
+    // filename, root, owner, modelType, lines, columns and size.
+    footprint.fields(7);
+    footprint.string(filename);
+    footprint.array(lines.length, 4);
+    footprint.array(columns.length, 4);
+  }
+}
@@ -17,11 +17,14 @@
  */
 package com.github.edgarespina.handlebars.internal;
 
+import static org.parboiled.common.Preconditions.checkNotNull;
+
 import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import com.github.edgarespina.handlebars.Context;
 import com.github.edgarespina.handlebars.Template;
@@ -39,6 +42,11 @@ class TemplateList extends BaseTemplate implements Iterable<BaseTemplate> {
    */
   private final List<BaseTemplate> nodes = new ArrayList<BaseTemplate>();
 
+  /**
+   * The text of the list before some children were removed or null.
+   */
+  private String text;
+
   /**
    * Add a child template. Empty templates aren't added.
    *
@@ -65,13 +73,49 @@ class TemplateList extends BaseTemplate implements Iterable<BaseTemplate> {
   @Override
   protected void merge(final Context context, final Writer writer)
       throws IOException {
+    int i = 0;
+    try {
+      for (; i < nodes.size(); i++) {
+        nodes.get(i).merge(context, writer);
+      }
+    } catch (Exception ex) {
+      throw nodes.get(i).error(ex);
+    }
+  }
+
+  @Override
+  protected void bind(final Schema schema, final Set<String> visited) {
     for (BaseTemplate node : nodes) {
-      node.apply(context, writer);
+      node.bind(schema, visited);
+    }
+  }
+
+  @Override
+  void moveLines(final int delta) {
+    super.moveLines(delta);
+    for (BaseTemplate node : nodes) {
+      node.moveLines(delta);
+    }
+  }
+
+  @Override
+  void size(final Footprint footprint) {
+    super.size(footprint);
+    footprint.fields(2);
+    if (text != null) {
+      footprint.string(text);
+    }
+    footprint.list(nodes.size());
+    for (BaseTemplate node : nodes) {
+      node.measure(footprint);
     }
   }
 
   @Override
   public String text() {
+    if (text != null) {
+      return text;
+    }
     StringBuilder buffer = new StringBuilder();
     for (BaseTemplate node : nodes) {
       buffer.append(node.text());
@@ -96,6 +140,39 @@ class TemplateList extends BaseTemplate implements Iterable<BaseTemplate> {
     return removed;
   }
 
+  /**
+   * The child at the given index.
+   *
+   * @param index The child's index.
+   * @return The child.
+   */
+  public BaseTemplate get(final int index) {
+    return nodes.get(index);
+  }
+
+  /**
+   * Replace the child at the given index.
+   *
+   * @param index The child's index.
+   * @param child The new child. Required.
+   */
+  public void set(final int index, final BaseTemplate child) {
+    nodes.set(index, checkNotNull(child, "The child is required."));
+  }
+
+  /**
+   * Remove the given children from the output, the text of the list is kept
+   * as it was.
+   *
+   * @param children The children to remove.
+   */
+  public void removeAll(final Set<BaseTemplate> children) {
+    if (children.size() > 0) {
+      text = text();
+      nodes.removeAll(children);
+    }
+  }
+
   /**
    * The number of children.
    *
@@ -58,6 +58,13 @@ class Text extends BaseTemplate {
     writer.append(text);
   }
 
+  @Override
+  void size(final Footprint footprint) {
+    super.size(footprint);
+    footprint.fields(1);
+    footprint.text(text);
+  }
+
   @Override
   public boolean remove(final Template child) {
     return false;
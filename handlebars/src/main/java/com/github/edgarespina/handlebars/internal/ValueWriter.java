@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.github.edgarespina.handlebars.Handlebars;
+
+/**
+ * Write values to the output. Numbers go straight into the buffer of a
+ * {@link FastStringWriter} and text is streamed, escaped or not, so rendering a
+ * value doesn't create intermediate strings.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+final class ValueWriter {
+
+  /**
+   * Not allowed.
+   */
+  private ValueWriter() {
+  }
+
+  /**
+   * Write a value.
+   *
+   * @param writer The writer. Required.
+   * @param value The value. Required.
+   * @param escape True, if the value's text should be HTML escaped.
+   * @throws IOException If the writer fails.
+   */
+  public static void write(final Writer writer, final Object value,
+      final boolean escape) throws IOException {
+    if (value instanceof CharSequence) {
+      CharSequence text = (CharSequence) value;
+      if (escape) {
+        Handlebars.Utils.escapeExpression(text, writer);
+      } else {
+        writer.append(text);
+      }
+    } else if (writer instanceof FastStringWriter && value instanceof Number) {
+      write((FastStringWriter) writer, (Number) value);
+    } else if (value instanceof Character && !escape) {
+      writer.write(((Character) value).charValue());
+    } else {
+      String text = value.toString();
+      if (escape) {
+        Handlebars.Utils.escapeExpression(text, writer);
+      } else {
+        writer.write(text);
+      }
+    }
+  }
+
+  /**
+   * Write a number. Boxed primitives are appended as primitives, any other
+   * number is converted to a string.
+   *
+   * @param writer The writer.
+   * @param value The number.
+   * @throws IOException If the writer fails.
+   */
+  private static void write(final FastStringWriter writer,
+      final Number value) throws IOException {
+    if (value instanceof Integer || value instanceof Long
+        || value instanceof Short || value instanceof Byte) {
+      writer.append(value.longValue());
+    } else if (value instanceof Double) {
+      writer.append(value.doubleValue());
+    } else if (value instanceof Float) {
+      writer.append(value.floatValue());
+    } else {
+      writer.append(value.toString());
+    }
+  }
+}
@@ -22,11 +22,15 @@ import java.io.Writer;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.github.edgarespina.handlebars.Context;
+import com.github.edgarespina.handlebars.Formatter;
 import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.Handlebars.FutureString;
 import com.github.edgarespina.handlebars.Helper;
 import com.github.edgarespina.handlebars.Lambda;
+import com.github.edgarespina.handlebars.PureHelper;
 import com.github.edgarespina.handlebars.Template;
 
 /**
@@ -191,6 +195,7 @@ class Variable extends HelperResolver {
     this.type = type;
     params(params);
     hash(hash);
+    bind(this.name);
   }
 
   /**
@@ -213,6 +218,7 @@ class Variable extends HelperResolver {
    *
    * @return The variable's name.
    */
+  @Override
   public String name() {
     return name;
   }
@@ -226,33 +232,82 @@ class Variable extends HelperResolver {
       Object context = determineContext(scope);
       DefaultOptions options =
           new DefaultOptions(handlebars, this, null, scope, params(scope),
-              hash(scope));
-      CharSequence result = helper.apply(context, options);
-      if (escape(result)) {
-        writer.append(Handlebars.Utils.escapeExpression(result));
+              hash(scope)).writer(writer);
+      CharSequence result = call(name, helper, context, options);
+      if (result instanceof FutureString) {
+        writeFuture((FutureString) result, writer);
       } else if (result != null) {
-        writer.append(result);
+        ValueWriter.write(writer, result, escape(result));
       }
     } else {
-      Object value = this.constant == null ? scope.get(name) : this.constant;
+      Object value =
+          this.constant == null ? value(scope, name) : this.constant;
       if (value != null) {
         if (value instanceof Lambda) {
           value =
               Lambdas.merge(handlebars, (Lambda<Object, Object>) value, scope,
-                  this);
+                  this, lambdas());
+        }
+        if (value instanceof FutureString) {
+          writeFuture((FutureString) value, writer);
+          return;
         }
-        String stringValue = value.toString();
-        // TODO: Add formatter hook
-        if (escape(value)) {
-          writer.append(Handlebars.Utils.escapeExpression(stringValue));
-        } else {
-          // DON'T escape none String values.
-          writer.append(stringValue);
+        Formatter<Object> formatter = handlebars.formatter(value.getClass());
+        if (formatter != null) {
+          value = formatter.format(value);
+          if (value == null) {
+            return;
+          }
         }
+        // DON'T escape none String values.
+        ValueWriter.write(writer, value, escape(value));
       }
     }
   }
 
+  /**
+   * Fold a call to a {@link PureHelper} with literal arguments into its
+   * output. Calls that fail are left as they are, so they fail at render
+   * time.
+   *
+   * @return The output or this variable.
+   */
+  BaseTemplate fold() {
+    Helper<Object> helper = handlebars.helper(name);
+    if (!(helper instanceof PureHelper) || !constant()) {
+      return this;
+    }
+    try {
+      String output = apply(Context.newContext(null)).toString();
+      return new Folded(this, output.length() == 0 ? null
+          : new Text(handlebars.intern(output)), helper);
+    } catch (IOException ex) {
+      return this;
+    } catch (RuntimeException ex) {
+      return this;
+    }
+  }
+
+  /**
+   * Write a pending value. The value is resolved here, unless the writer is
+   * an {@link AsyncWriter}: it keeps the pending value, so rendering can keep
+   * going.
+   *
+   * @param value The pending value.
+   * @param writer The writer.
+   * @throws IOException If the value cannot be written.
+   */
+  private void writeFuture(final FutureString value, final Writer writer)
+      throws IOException {
+    FutureString future = type.escape() ? value.escape() : value;
+    if (writer instanceof AsyncWriter) {
+      writer.append(future);
+    } else {
+      // Wait here: other writers would read the value char by char.
+      writer.append(future.toString());
+    }
+  }
+
   /**
    * True if the given value should be escaped.
    *
@@ -272,6 +327,23 @@ class Variable extends HelperResolver {
     }
   }
 
+  @Override
+  void size(final Footprint footprint) {
+    super.size(footprint);
+    footprint.fields(3);
+    footprint.string(name);
+    footprint.value(constant);
+  }
+
+  @Override
+  protected void bind(final Schema schema, final Set<String> visited) {
+    if (bind(name) != null) {
+      bindParams(schema);
+    } else if (constant == null) {
+      schema.accessor(this, lookup(schema, name).accessor());
+    }
+  }
+
   @Override
   public boolean remove(final Template child) {
     return false;
@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.io;
+
+import static org.parboiled.common.Preconditions.checkArgument;
+import static org.parboiled.common.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.edgarespina.handlebars.TemplateLoader;
+
+/**
+ * Load templates from a bundle: a single file with all the templates of an
+ * application. The bundle is read in memory once and templates are served as
+ * slices of it, so there is a single file lookup at startup no matter how
+ * many templates the application has. The file isn't kept open, so it can be
+ * rebuilt or deleted while the loader is in use.
+ * <p>
+ * A bundle is created from a directory with {@link #build(File, File)}. The
+ * template's names are their path relative to the directory, like:
+ * <code>/partials/item.hbs</code>, so the default prefix and suffix work as
+ * with a {@link FileTemplateLoader} for the same directory.
+ * </p>
+ * <p>
+ * Format: a magic number, the number of templates, then the name and size (in
+ * bytes) of each template, followed by the content of all the templates.
+ * </p>
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class BundleTemplateLoader extends TemplateLoader {
+
+  /**
+   * The bundle's magic number.
+   */
+  private static final int MAGIC = 0x48425331;
+
+  /**
+   * The content of all the templates.
+   */
+  private final ByteBuffer data;
+
+  /**
+   * The location of every template: offset and length in {@link #data}.
+   */
+  private final Map<String, int[]> index = new HashMap<String, int[]>();
+
+  /**
+   * Creates a new {@link BundleTemplateLoader}.
+   *
+   * @param bundle The bundle file. Required.
+   * @throws IOException If the bundle cannot be read.
+   */
+  public BundleTemplateLoader(final File bundle) throws IOException {
+    checkNotNull(bundle, "The bundle is required.");
+    checkArgument(bundle.isFile(), "File not found: %s", bundle);
+    DataInputStream input = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(bundle)));
+    try {
+      if (input.readInt() != MAGIC) {
+        throw new IOException("Not a template bundle: " + bundle);
+      }
+      int count = input.readInt();
+      long dataLength = 0;
+      for (int i = 0; i < count; i++) {
+        String name = input.readUTF();
+        int length = input.readInt();
+        index.put(name, new int[] {(int) dataLength, length });
+        dataLength += length;
+      }
+      if (dataLength > Integer.MAX_VALUE) {
+        throw new IOException("Bundle too big: " + bundle);
+      }
+      byte[] bytes = new byte[(int) dataLength];
+      input.readFully(bytes);
+      this.data = ByteBuffer.wrap(bytes);
+    } finally {
+      input.close();
+    }
+  }
+
+  @Override
+  protected Reader read(final String location) throws IOException {
+    int[] entry = index.get(location);
+    if (entry == null) {
+      return null;
+    }
+    // Work on a copy, the position and limit are per reader.
+    ByteBuffer slice = data.duplicate();
+    slice.position(entry[0]);
+    slice.limit(entry[0] + entry[1]);
+    return FileTemplateLoader.decode(slice, getCharset());
+  }
+
+  /**
+   * Create a bundle with all the files of a directory. The bundle itself is
+   * skipped if it's inside the directory. Every file is read before the
+   * bundle is written.
+   *
+   * @param directory The template directory. Required.
+   * @param bundle The bundle file. Required.
+   * @throws IOException If the bundle cannot be written.
+   */
+  public static void build(final File directory, final File bundle)
+      throws IOException {
+    checkNotNull(directory, "The directory is required.");
+    checkArgument(directory.isDirectory(), "A directory is required: %s",
+        directory);
+    checkNotNull(bundle, "The bundle is required.");
+    List<File> files = new ArrayList<File>();
+    list(directory, bundle.getCanonicalFile(), files);
+    // Lengths are the bytes actually read, a file might change meanwhile.
+    List<byte[]> contents = new ArrayList<byte[]>(files.size());
+    byte[] buffer = new byte[1024 * 8];
+    for (File file : files) {
+      contents.add(read(file, buffer));
+    }
+    DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(bundle)));
+    try {
+      output.writeInt(MAGIC);
+      output.writeInt(files.size());
+      String root = directory.getAbsolutePath();
+      for (int i = 0; i < files.size(); i++) {
+        String name = files.get(i).getAbsolutePath().substring(root.length())
+            .replace(File.separatorChar, '/');
+        output.writeUTF(name);
+        output.writeInt(contents.get(i).length);
+      }
+      for (byte[] content : contents) {
+        output.write(content);
+      }
+    } finally {
+      output.close();
+    }
+  }
+
+  /**
+   * List all the files of a directory, in a predictable order.
+   *
+   * @param directory The directory.
+   * @param bundle The canonical bundle file, it's skipped.
+   * @param files The files found so far.
+   * @throws IOException If a canonical path cannot be resolved.
+   */
+  private static void list(final File directory, final File bundle,
+      final List<File> files) throws IOException {
+    File[] children = directory.listFiles();
+    if (children == null) {
+      return;
+    }
+    Arrays.sort(children);
+    for (File child : children) {
+      if (child.isDirectory()) {
+        list(child, bundle, files);
+      } else if (!child.getCanonicalFile().equals(bundle)) {
+        files.add(child);
+      }
+    }
+  }
+
+  /**
+   * Read a file.
+   *
+   * @param file The file.
+   * @param buffer The copy buffer.
+   * @return The content of the file.
+   * @throws IOException If the file cannot be read.
+   */
+  private static byte[] read(final File file, final byte[] buffer)
+      throws IOException {
+    InputStream input = new FileInputStream(file);
+    try {
+      ByteArrayOutputStream output =
+          new ByteArrayOutputStream((int) file.length());
+      int len;
+      while ((len = input.read(buffer)) != -1) {
+        output.write(buffer, 0, len);
+      }
+      return output.toByteArray();
+    } finally {
+      input.close();
+    }
+  }
+}
@@ -0,0 +1,376 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.io;
+
+import static org.parboiled.common.Preconditions.checkArgument;
+import static org.parboiled.common.Preconditions.checkNotNull;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.edgarespina.handlebars.TemplateLoader;
+
+/**
+ * A template loader that delegates to other loaders, like: tenant directory,
+ * shared directory and classpath. Loaders are tried in order and the first
+ * one with the template wins.
+ * <p>
+ * The loader that resolved a template, or the fact that none did, is
+ * remembered for a while (see {@link #setTimeToLive(long, TimeUnit)}), so
+ * later lookups go straight to the right loader and missing templates don't
+ * probe the loaders again. At most {@link #setMaxSize(int)} templates are
+ * remembered: expired entries are dropped first. Lookups and hits are counted
+ * per loader.
+ * </p>
+ * <p>
+ * Prefix, suffix and charset belong to the delegate loaders, setting them
+ * here isn't supported.
+ * </p>
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class CompositeTemplateLoader extends TemplateLoader {
+
+  /**
+   * The loader that resolved a template.
+   *
+   * @author edgar.espina
+   * @since 0.2.2
+   */
+  private static final class Resolution {
+
+    /**
+     * The loader's index or -1 if there isn't one.
+     */
+    private final int tier;
+
+    /**
+     * When the resolution expires, in nanos.
+     */
+    private final long expires;
+
+    /**
+     * Creates a new {@link Resolution}.
+     *
+     * @param tier The loader's index or -1 if there isn't one.
+     * @param expires When the resolution expires, in nanos.
+     */
+    public Resolution(final int tier, final long expires) {
+      this.tier = tier;
+      this.expires = expires;
+    }
+  }
+
+  /**
+   * No loader found the template.
+   */
+  private static final int MISSING = -1;
+
+  /**
+   * The default max number of remembered templates.
+   */
+  public static final int DEFAULT_MAX_SIZE = 1024;
+
+  /**
+   * The delegate loaders.
+   */
+  private final TemplateLoader[] loaders;
+
+  /**
+   * Number of lookups per loader.
+   */
+  private final AtomicLong[] lookups;
+
+  /**
+   * Number of hits per loader.
+   */
+  private final AtomicLong[] hits;
+
+  /**
+   * The loader of each template.
+   */
+  private final ConcurrentMap<String, Resolution> resolutions =
+      new ConcurrentHashMap<String, Resolution>();
+
+  /**
+   * The number of resolutions, kept apart because the size of a concurrent
+   * map isn't cheap.
+   */
+  private final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * The max number of resolutions.
+   */
+  private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+  /**
+   * How long a resolution is valid, in nanos.
+   */
+  private volatile long timeToLive = TimeUnit.MINUTES.toNanos(1);
+
+  /**
+   * Creates a new {@link CompositeTemplateLoader}.
+   *
+   * @param loaders The delegate loaders, in lookup order. At least one is
+   *        required.
+   */
+  public CompositeTemplateLoader(final TemplateLoader... loaders) {
+    checkNotNull(loaders, "The loaders are required.");
+    checkArgument(loaders.length > 0, "At least one loader is required.");
+    this.loaders = loaders.clone();
+    this.lookups = new AtomicLong[loaders.length];
+    this.hits = new AtomicLong[loaders.length];
+    for (int i = 0; i < loaders.length; i++) {
+      checkNotNull(loaders[i], "The loaders are required.");
+      lookups[i] = new AtomicLong();
+      hits[i] = new AtomicLong();
+    }
+  }
+
+  @Override
+  public Reader load(final URI uri) throws IOException {
+    checkNotNull(uri, "The uri is required.");
+    String key = uri.toString();
+    long now = System.nanoTime();
+    Resolution resolution = resolutions.get(key);
+    if (resolution != null) {
+      if (now - resolution.expires < 0) {
+        if (resolution.tier == MISSING) {
+          throw new FileNotFoundException(resolve(key));
+        }
+        Reader reader = load(resolution.tier, uri);
+        if (reader != null) {
+          return reader;
+        }
+      }
+      forget(key, resolution);
+    }
+    for (int i = 0; i < loaders.length; i++) {
+      Reader reader = load(i, uri);
+      if (reader != null) {
+        remember(key, i, now);
+        return reader;
+      }
+    }
+    remember(key, MISSING, now);
+    throw new FileNotFoundException(resolve(key));
+  }
+
+  /**
+   * Remember the loader of a template, unless caching is off.
+   *
+   * @param key The template's key.
+   * @param tier The loader's index or {@link #MISSING}.
+   * @param now The current time, in nanos.
+   */
+  private void remember(final String key, final int tier, final long now) {
+    long ttl = timeToLive;
+    if (ttl == 0) {
+      return;
+    }
+    if (resolutions.put(key, new Resolution(tier, now + ttl)) == null
+        && size.incrementAndGet() > maxSize) {
+      evict(now);
+    }
+  }
+
+  /**
+   * Forget a resolution, unless it was replaced.
+   *
+   * @param key The template's key.
+   * @param resolution The resolution.
+   */
+  private void forget(final String key, final Resolution resolution) {
+    if (resolutions.remove(key, resolution)) {
+      size.decrementAndGet();
+    }
+  }
+
+  /**
+   * Remove the expired resolutions, then any resolution until the map fits
+   * its max size.
+   *
+   * @param now The current time, in nanos.
+   */
+  private void evict(final long now) {
+    for (Map.Entry<String, Resolution> entry : resolutions.entrySet()) {
+      if (now - entry.getValue().expires >= 0) {
+        forget(entry.getKey(), entry.getValue());
+      }
+    }
+    Iterator<Map.Entry<String, Resolution>> entries =
+        resolutions.entrySet().iterator();
+    while (size.get() > maxSize && entries.hasNext()) {
+      Map.Entry<String, Resolution> entry = entries.next();
+      forget(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Load a template from the given loader.
+   *
+   * @param tier The loader's index.
+   * @param uri The template's uri.
+   * @return The template or null if the loader doesn't have it.
+   * @throws IOException If the template cannot be loaded.
+   */
+  private Reader load(final int tier, final URI uri) throws IOException {
+    lookups[tier].incrementAndGet();
+    try {
+      Reader reader = loaders[tier].load(uri);
+      hits[tier].incrementAndGet();
+      return reader;
+    } catch (FileNotFoundException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Not supported: templates are loaded by the delegate loaders.
+   *
+   * @param location The resource's location.
+   * @return Never returns.
+   * @throws IOException Never.
+   */
+  @Override
+  protected Reader read(final String location) throws IOException {
+    throw new UnsupportedOperationException(
+        "Templates are read by the delegate loaders.");
+  }
+
+  /**
+   * Not supported: set the prefix on the delegate loaders.
+   *
+   * @param prefix The prefix.
+   */
+  @Override
+  public void setPrefix(final String prefix) {
+    throw new UnsupportedOperationException(
+        "Set the prefix on the delegate loaders.");
+  }
+
+  /**
+   * Not supported: set the suffix on the delegate loaders.
+   *
+   * @param suffix The suffix.
+   */
+  @Override
+  public void setSuffix(final String suffix) {
+    throw new UnsupportedOperationException(
+        "Set the suffix on the delegate loaders.");
+  }
+
+  /**
+   * Not supported: set the charset on the delegate loaders.
+   *
+   * @param charset The charset.
+   */
+  @Override
+  public void setCharset(final Charset charset) {
+    throw new UnsupportedOperationException(
+        "Set the charset on the delegate loaders.");
+  }
+
+  /**
+   * Resolve the uri with the loader that has the template, or the first
+   * loader if no one has it.
+   *
+   * @param uri The candidate uri.
+   * @return Resolve the uri to an absolute location.
+   */
+  @Override
+  public String resolve(final String uri) {
+    Resolution resolution = resolutions.get(uri);
+    int tier = resolution == null || resolution.tier == MISSING ? 0
+        : resolution.tier;
+    return loaders[tier].resolve(uri);
+  }
+
+  /**
+   * Set how long a loader is remembered as the one with a template, or a
+   * template is remembered as missing. Default is: one minute.
+   *
+   * @param duration The duration. Zero means no caching.
+   * @param unit The duration's unit. Required.
+   */
+  public void setTimeToLive(final long duration, final TimeUnit unit) {
+    checkArgument(duration >= 0, "The time to live must be positive.");
+    checkNotNull(unit, "The time unit is required.");
+    this.timeToLive = unit.toNanos(duration);
+  }
+
+  /**
+   * Set the max number of remembered templates. Default is:
+   * {@link #DEFAULT_MAX_SIZE}.
+   *
+   * @param maxSize The max number of remembered templates.
+   */
+  public void setMaxSize(final int maxSize) {
+    checkArgument(maxSize > 0, "The max size must be positive.");
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * The number of remembered templates.
+   *
+   * @return The number of remembered templates.
+   */
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * Forget the loader of every template and all the missing templates.
+   */
+  public void clear() {
+    for (Map.Entry<String, Resolution> entry : resolutions.entrySet()) {
+      forget(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * The number of lookups made to a loader.
+   *
+   * @param tier The loader's index.
+   * @return The number of lookups made to a loader.
+   */
+  public long lookups(final int tier) {
+    return lookups[tier].get();
+  }
+
+  /**
+   * The number of templates found by a loader.
+   *
+   * @param tier The loader's index.
+   * @return The number of templates found by a loader.
+   */
+  public long hits(final int tier) {
+    return hits[tier].get();
+  }
+}
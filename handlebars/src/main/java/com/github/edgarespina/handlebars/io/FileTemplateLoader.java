@@ -20,16 +20,23 @@ package com.github.edgarespina.handlebars.io;
 import static org.parboiled.common.Preconditions.checkArgument;
 import static org.parboiled.common.Preconditions.checkNotNull;
 
+import java.io.CharArrayReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
 
 import com.github.edgarespina.handlebars.TemplateLoader;
 
 /**
  * Load templates from the file system. A base path must be specified at
  * creation time. The base path serve as template repository.
+ * Files are read in one go and decoded with {@link #getCharset()}.
  *
  * @author edgar.espina
  * @since 0.1.0
@@ -86,7 +93,40 @@ public class FileTemplateLoader extends TemplateLoader {
     if (!file.exists()) {
       return null;
     }
-    return new FileReader(file);
+    InputStream input = new FileInputStream(file);
+    try {
+      byte[] bytes = new byte[(int) file.length()];
+      int size = 0;
+      while (size < bytes.length) {
+        int count = input.read(bytes, size, bytes.length - size);
+        if (count < 0) {
+          break;
+        }
+        size += count;
+      }
+      return decode(ByteBuffer.wrap(bytes, 0, size), getCharset());
+    } finally {
+      input.close();
+    }
+  }
+
+  /**
+   * Decode the bytes in a single pass and creates a reader for them.
+   *
+   * @param bytes The bytes.
+   * @param charset The charset.
+   * @return A reader.
+   * @throws IOException If the bytes cannot be decoded.
+   */
+  static Reader decode(final ByteBuffer bytes, final Charset charset)
+      throws IOException {
+    // Same error handling than readers: bad input is replaced.
+    CharBuffer chars = charset.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE)
+        .decode(bytes);
+    return new CharArrayReader(chars.array(), chars.position(),
+        chars.remaining());
   }
 
 }
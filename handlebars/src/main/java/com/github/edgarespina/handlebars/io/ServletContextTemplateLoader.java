@@ -85,7 +85,7 @@ public class ServletContextTemplateLoader extends TemplateLoader {
     if (input == null) {
       return null;
     }
-    return new InputStreamReader(input);
+    return new InputStreamReader(input, getCharset());
   }
 
 }
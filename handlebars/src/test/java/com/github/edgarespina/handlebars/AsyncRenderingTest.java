@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.Handlebars.FutureString;
+
+/**
+ * Unit test for {@link Template#applyAsync(Object, java.io.Writer)}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class AsyncRenderingTest {
+
+  private ExecutorService executor;
+
+  private Handlebars handlebars;
+
+  private CountDownLatch started;
+
+  @Before
+  public void setup() {
+    executor = Executors.newCachedThreadPool();
+    handlebars = new Handlebars();
+    handlebars.registerHelper("slow", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options)
+          throws IOException {
+        return new FutureString(executor.submit(new Callable<CharSequence>() {
+          @Override
+          public CharSequence call() throws Exception {
+            started.countDown();
+            // Every fragment waits for the others: it only completes if all
+            // of them are running at the same time.
+            if (!started.await(5, TimeUnit.SECONDS)) {
+              throw new IllegalStateException("fragments aren't concurrent");
+            }
+            return context.toString();
+          }
+        }));
+      }
+    });
+  }
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void concurrentFragments() throws Exception {
+    started = new CountDownLatch(5);
+    Template template =
+        handlebars.compile("<{{slow \"a\"}}|{{slow \"b\"}}|{{slow \"c\"}}|"
+            + "{{slow \"d\"}}|{{slow \"e\"}}>");
+    StringWriter writer = new StringWriter();
+    assertEquals(writer, template.applyAsync(null, writer).get());
+    assertEquals("<a|b|c|d|e>", writer.toString());
+  }
+
+  @Test
+  public void escape() throws Exception {
+    started = new CountDownLatch(1);
+    StringWriter writer = new StringWriter();
+    handlebars.compile("{{slow \"<b>\"}}{{{slow \"<b>\"}}}")
+        .applyAsync(null, writer).get();
+    assertEquals("&lt;b&gt;<b>", writer.toString());
+  }
+
+  @Test
+  public void resolvedOnce() throws Exception {
+    final StringBuilder fragment = new StringBuilder();
+    for (int i = 0; i < 10000; i++) {
+      fragment.append("<a>&");
+    }
+    final AtomicInteger calls = new AtomicInteger();
+    final FutureTask<CharSequence> content =
+        new FutureTask<CharSequence>(new Callable<CharSequence>() {
+          @Override
+          public CharSequence call() {
+            return fragment;
+          }
+        }) {
+          @Override
+          public CharSequence get() throws InterruptedException,
+              ExecutionException {
+            calls.incrementAndGet();
+            return super.get();
+          }
+        };
+    content.run();
+    handlebars.registerHelper("fragment", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options) {
+        return new FutureString(content);
+      }
+    });
+    String output = handlebars.compile("{{fragment}}").apply(null).toString();
+    assertEquals(Handlebars.Utils.escapeExpression(fragment), output);
+    assertEquals(1, calls.get());
+    FutureString value = new FutureString(content).escape();
+    assertSame(value.toString(), value.toString());
+    assertEquals(output.length(), value.length());
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void blockingApply() throws Exception {
+    started = new CountDownLatch(1);
+    assertEquals("a.b", handlebars.compile("{{slow \"a\"}}.{{slow \"b\"}}")
+        .apply(null));
+  }
+}
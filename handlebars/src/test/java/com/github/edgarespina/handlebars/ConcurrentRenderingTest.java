@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+import static com.github.edgarespina.handlebars.Literals.$;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.cache.ConcurrentMapCache;
+
+/**
+ * Render a set of distinct templates from many threads at once. If the running
+ * JVM supports virtual threads, they are used for rendering.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class ConcurrentRenderingTest {
+
+  public static class User {
+    private String name;
+
+    private int age;
+
+    public User(final String name, final int age) {
+      this.name = name;
+      this.age = age;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getAge() {
+      return age;
+    }
+
+    public boolean isAdult() {
+      return age >= 18;
+    }
+  }
+
+  static final int TEMPLATES = 1000;
+
+  static final int RENDERS = 5000;
+
+  @Test
+  public void render() throws Exception {
+    // Each render picks one of many distinct templates, so the template
+    // cache and the partial lookups are hit under contention.
+    Map<String, String> source =
+        $("/user.hbs", "{{name}}:{{age}}{{#adult}}+{{/adult}}");
+    for (int i = 0; i < TEMPLATES; i++) {
+      source.put("/users" + i + ".hbs",
+          "{{#each users}}{{> user}},{{/each}}{{title}}" + i);
+    }
+    final Handlebars handlebars =
+        new Handlebars(new MapTemplateLoader(source), new ConcurrentMapCache());
+    final List<Object> users = new ArrayList<Object>();
+    for (int i = 0; i < 10; i++) {
+      users.add(new User("u" + i, 10 + i));
+    }
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 10; i++) {
+      expected.append("u").append(i).append(":").append(10 + i)
+          .append(10 + i >= 18 ? "+" : "").append(",");
+    }
+    final String prefix = expected.toString();
+
+    ExecutorService executor = newExecutor();
+    List<Future<Boolean>> results = new ArrayList<Future<Boolean>>(RENDERS);
+    long start = System.nanoTime();
+    for (int i = 0; i < RENDERS; i++) {
+      final int n = i % TEMPLATES;
+      results.add(executor.submit(new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws IOException {
+          Template template = handlebars.compile(URI.create("users" + n));
+          Map<String, Object> model =
+              $("users", (Object) users).$("title", "t");
+          assertEquals(prefix + "t" + n, template.apply(model));
+          return true;
+        }
+      }));
+    }
+    for (Future<Boolean> result : results) {
+      assertEquals(true, result.get());
+    }
+    long elapsed = System.nanoTime() - start;
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+    Handlebars.log("%s renders in %sms (%s renders/s)", RENDERS,
+        TimeUnit.NANOSECONDS.toMillis(elapsed),
+        RENDERS * TimeUnit.SECONDS.toNanos(1) / Math.max(1, elapsed));
+  }
+
+  /**
+   * Creates a virtual thread executor if the JVM supports it, or a fixed pool
+   * otherwise.
+   *
+   * @return An executor.
+   */
+  private static ExecutorService newExecutor() {
+    try {
+      Method factory =
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (Exception ex) {
+      return Executors.newFixedThreadPool(64);
+    }
+  }
+}
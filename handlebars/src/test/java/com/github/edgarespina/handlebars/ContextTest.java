@@ -18,8 +18,12 @@
 package com.github.edgarespina.handlebars;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
+import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -169,6 +173,28 @@ public class ContextTest {
     assertEquals("childProperty", context.get("childProperty"));
   }
 
+  @Test
+  public void nullStorageValue() throws IOException {
+    Context context = Context.newContext(new Object());
+    context.storage().put("a", "a");
+    context.storage().put("a", null);
+    assertNull(context.storage().get("a"));
+    context.storage().putAll(Collections.<String, Object> singletonMap("b",
+        null));
+    assertFalse(context.storage().containsKey("b"));
+
+    Handlebars handlebars = new Handlebars();
+    handlebars.registerHelper("clear", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object model, final Options options)
+          throws IOException {
+        options.partial("p", null);
+        return options.partial("p") == null ? "cleared" : "kept";
+      }
+    });
+    assertEquals("cleared", handlebars.compile("{{clear}}").apply(context));
+  }
+
   @Test
   public void combine() {
     Context context = Context
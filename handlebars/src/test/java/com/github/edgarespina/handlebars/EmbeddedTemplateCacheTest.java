@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.cache.ConcurrentMapCache;
+import com.github.edgarespina.handlebars.io.ClassTemplateLoader;
+
+/**
+ * Unit test for the cache of templates created from strings.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class EmbeddedTemplateCacheTest {
+
+  @Test
+  public void collidingHashCodes() throws IOException {
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    Handlebars handlebars =
+        new Handlebars(new ClassTemplateLoader(), new ConcurrentMapCache());
+    Template aa = handlebars.compile("Aa");
+    Template bb = handlebars.compile("BB");
+    assertNotSame(aa, bb);
+    assertEquals("Aa", aa.apply(null));
+    assertEquals("BB", bb.apply(null));
+  }
+
+  @Test
+  public void sameContent() throws IOException {
+    Handlebars handlebars =
+        new Handlebars(new ClassTemplateLoader(), new ConcurrentMapCache());
+    Template template = handlebars.compile("{{name}}");
+    assertSame(template, handlebars.compile(new String("{{name}}")));
+    assertNotSame(template, handlebars.compile("{{name}}", "<%", "%>"));
+  }
+}
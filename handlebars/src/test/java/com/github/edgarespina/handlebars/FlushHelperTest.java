@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link BuiltInHelpers#FLUSH}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class FlushHelperTest {
+
+  static class RecordingWriter extends StringWriter {
+    StringBuilder flushes = new StringBuilder();
+
+    @Override
+    public void flush() {
+      flushes.append(getBuffer().length()).append(";");
+    }
+  }
+
+  @Test
+  public void flush() throws IOException {
+    RecordingWriter writer = new RecordingWriter();
+    new Handlebars().compile("<head></head>{{flush}}<body>{{this}}</body>")
+        .apply("x", writer);
+    assertEquals("<head></head><body>x</body>", writer.toString());
+    assertEquals("13;", writer.flushes.toString());
+  }
+
+  @Test
+  public void flushInsideSection() throws IOException {
+    RecordingWriter writer = new RecordingWriter();
+    new Handlebars().compile("{{#each this}}{{this}}{{flush}}{{/each}}")
+        .apply(Arrays.asList(1, 2), writer);
+    assertEquals("12", writer.toString());
+    assertEquals("", writer.flushes.toString());
+  }
+
+  @Test
+  public void userHelper() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    handlebars.registerHelper("chunk", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options)
+          throws IOException {
+        options.flush();
+        return "|";
+      }
+    });
+    RecordingWriter writer = new RecordingWriter();
+    handlebars.compile("ab{{chunk}}cd{{chunk}}").apply(null, writer);
+    assertEquals("ab|cd|", writer.toString());
+    assertEquals("2;5;", writer.flushes.toString());
+  }
+}
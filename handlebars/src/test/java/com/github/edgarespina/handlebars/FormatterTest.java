@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit test for value writing and {@link Formatter}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class FormatterTest {
+
+  @Test
+  public void numbers() throws IOException {
+    Template template = new Handlebars().compile("{{.}}");
+    assertEquals("7", template.apply(7));
+    assertEquals("-9223372036854775808", template.apply(Long.MIN_VALUE));
+    assertEquals("3.5", template.apply(3.5d));
+    assertEquals("1.1", template.apply(1.1f));
+    assertEquals("12", template.apply((short) 12));
+    assertEquals("1.10", template.apply(new BigDecimal("1.10")));
+  }
+
+  @Test
+  public void charSequences() throws IOException {
+    Template template = new Handlebars().compile("{{.}}|{{{.}}}");
+    assertEquals("a&lt;b&gt;&amp;c|a<b>&c",
+        template.apply(new StringBuilder("a<b>&c")));
+    assertEquals("&lt;|<", template.apply('<'));
+  }
+
+  @Test
+  public void formatter() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    handlebars.registerFormatter(Number.class, new Formatter<Number>() {
+      @Override
+      public CharSequence format(final Number value) {
+        return "<" + value + ">";
+      }
+    });
+    Template template = handlebars.compile("{{n}} {{{n}}} {{s}}");
+    assertEquals("&lt;7&gt; <7> s", template.apply($("n", 7, "s", "s")));
+  }
+
+  @Test
+  public void mostSpecificFormatter() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    handlebars.registerFormatter(Comparable.class, new Formatter<Object>() {
+      @Override
+      public CharSequence format(final Object value) {
+        return "comparable";
+      }
+    });
+    Template template = handlebars.compile("{{.}}");
+    assertEquals("comparable", template.apply(1));
+    handlebars.registerFormatter(Integer.class, new Formatter<Integer>() {
+      @Override
+      public CharSequence format(final Integer value) {
+        return new Handlebars.SafeString("<" + value + ">");
+      }
+    });
+    assertEquals("<1>", template.apply(1));
+    assertEquals("comparable", template.apply(new Date()));
+  }
+
+  private static Map<String, Object> $(final Object... values) {
+    return Literals.<String, Object> $((String) values[0], values[1])
+        .$((String) values[2], values[3]);
+  }
+}
@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.cache.FragmentCache;
+
+/**
+ * Unit test for {@link FragmentCache} and the cache helper.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class FragmentCacheTest {
+
+  private static Handlebars counting(final AtomicInteger counter) {
+    Handlebars handlebars = new Handlebars();
+    handlebars.registerHelper("count", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options)
+          throws IOException {
+        return String.valueOf(counter.incrementAndGet());
+      }
+    });
+    return handlebars;
+  }
+
+  private static Map<String, Object> id(final Object id) {
+    Map<String, Object> context = new HashMap<String, Object>();
+    context.put("id", id);
+    return context;
+  }
+
+  @Test
+  public void renderOnce() throws IOException {
+    AtomicInteger counter = new AtomicInteger();
+    Handlebars handlebars = counting(counter);
+    Template template =
+        handlebars.compile("{{#cache key=id}}<b>{{count}}</b>{{/cache}}");
+    assertEquals("<b>1</b>", template.apply(id(1)));
+    assertEquals("<b>1</b>", template.apply(id(1)));
+    assertEquals(1, counter.get());
+    assertEquals(1, handlebars.getFragmentCache().hits());
+    assertEquals(1, handlebars.getFragmentCache().misses());
+  }
+
+  @Test
+  public void keys() throws IOException {
+    AtomicInteger counter = new AtomicInteger();
+    Handlebars handlebars = counting(counter);
+    Template template =
+        handlebars.compile("{{#cache key=id}}{{count}}{{/cache}}"
+            + "{{#cache key=id}}{{count}}{{/cache}}");
+    assertEquals("12", template.apply(id(1)));
+    assertEquals("34", template.apply(id(2)));
+    assertEquals("12", template.apply(id(1)));
+    assertEquals(4, handlebars.getFragmentCache().size());
+  }
+
+  @Test
+  public void ttl() throws Exception {
+    FragmentCache cache = new FragmentCache();
+    final AtomicInteger counter = new AtomicInteger();
+    Callable<CharSequence> renderer = new Callable<CharSequence>() {
+      @Override
+      public CharSequence call() {
+        return String.valueOf(counter.incrementAndGet());
+      }
+    };
+    assertEquals("1", cache.get("k", 1, TimeUnit.MILLISECONDS, renderer));
+    Thread.sleep(5);
+    assertEquals("2", cache.get("k", 1, TimeUnit.MILLISECONDS, renderer));
+    assertEquals("3", cache.get("e", 0, TimeUnit.SECONDS, renderer));
+    assertEquals("3", cache.get("e", 0, TimeUnit.SECONDS, renderer));
+  }
+
+  @Test
+  public void lru() throws IOException {
+    FragmentCache cache = new FragmentCache(2);
+    final AtomicInteger counter = new AtomicInteger();
+    Callable<CharSequence> renderer = new Callable<CharSequence>() {
+      @Override
+      public CharSequence call() {
+        return String.valueOf(counter.incrementAndGet());
+      }
+    };
+    cache.get("a", 0, TimeUnit.SECONDS, renderer);
+    cache.get("b", 0, TimeUnit.SECONDS, renderer);
+    cache.get("a", 0, TimeUnit.SECONDS, renderer);
+    cache.get("c", 0, TimeUnit.SECONDS, renderer);
+    assertEquals(2, cache.size());
+    assertEquals("1", cache.get("a", 0, TimeUnit.SECONDS, renderer));
+    assertEquals("4", cache.get("b", 0, TimeUnit.SECONDS, renderer));
+  }
+
+  @Test
+  public void failuresArentCached() throws IOException {
+    FragmentCache cache = new FragmentCache();
+    try {
+      cache.get("k", 0, TimeUnit.SECONDS, new Callable<CharSequence>() {
+        @Override
+        public CharSequence call() throws IOException {
+          throw new IOException("boom");
+        }
+      });
+    } catch (IOException ex) {
+      assertEquals("boom", ex.getMessage());
+    }
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void stampede() throws Exception {
+    final FragmentCache cache = new FragmentCache();
+    final AtomicInteger counter = new AtomicInteger();
+    final CountDownLatch start = new CountDownLatch(1);
+    final Callable<CharSequence> renderer = new Callable<CharSequence>() {
+      @Override
+      public CharSequence call() throws Exception {
+        Thread.sleep(50);
+        return String.valueOf(counter.incrementAndGet());
+      }
+    };
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<CharSequence>> results =
+          new ArrayList<Future<CharSequence>>();
+      for (int i = 0; i < threads; i++) {
+        results.add(executor.submit(new Callable<CharSequence>() {
+          @Override
+          public CharSequence call() throws Exception {
+            start.await();
+            return cache.get("k", 0, TimeUnit.SECONDS, renderer);
+          }
+        }));
+      }
+      start.countDown();
+      for (Future<CharSequence> result : results) {
+        assertEquals("1", result.get());
+      }
+      assertEquals(1, counter.get());
+      assertEquals(1, cache.misses());
+      assertEquals(threads - 1, cache.hits());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test(timeout = 5000)
+  public void reentry() throws IOException {
+    final FragmentCache cache = new FragmentCache();
+    final AtomicInteger depth = new AtomicInteger();
+    Callable<CharSequence> renderer = new Callable<CharSequence>() {
+      @Override
+      public CharSequence call() throws IOException {
+        if (depth.incrementAndGet() > 2) {
+          return "";
+        }
+        return "(" + cache.get("tree", 0, TimeUnit.SECONDS, this) + ")";
+      }
+    };
+    assertEquals("(())", cache.get("tree", 0, TimeUnit.SECONDS, renderer));
+    assertEquals("(())", cache.get("tree", 0, TimeUnit.SECONDS, renderer));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void ttlAsString() throws IOException {
+    AtomicInteger counter = new AtomicInteger();
+    Template template = counting(counter)
+        .compile("{{#cache key=id ttl=\"60\"}}{{count}}{{/cache}}");
+    assertEquals("1", template.apply(id(1)));
+    assertEquals("1", template.apply(id(1)));
+  }
+
+  @Test(expected = HandlebarsException.class)
+  public void badTtl() throws IOException {
+    new Handlebars().compile("{{#cache key=id ttl=\"soon\"}}{{/cache}}")
+        .apply(id(1));
+  }
+
+  @Test(expected = HandlebarsException.class)
+  public void negativeTtl() throws IOException {
+    new Handlebars().compile("{{#cache key=id ttl=-1}}{{/cache}}")
+        .apply(id(1));
+  }
+}
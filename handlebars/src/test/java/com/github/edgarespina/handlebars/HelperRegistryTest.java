@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit test for the helper registry.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class HelperRegistryTest {
+
+  static Helper<Object> hello = new Helper<Object>() {
+    @Override
+    public CharSequence apply(final Object context, final Options options)
+        throws IOException {
+      return "Hello " + context;
+    }
+  };
+
+  @Test
+  public void snapshot() {
+    Handlebars handlebars = new Handlebars();
+    Map<String, Helper<Object>> before = handlebars.helpers();
+    assertSame(before, handlebars.helpers());
+    handlebars.registerHelper("hello", hello);
+    Map<String, Helper<Object>> after = handlebars.helpers();
+    assertNotSame(before, after);
+    assertEquals(null, before.get("hello"));
+    assertSame(hello, after.get("hello"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void readOnlySnapshot() {
+    new Handlebars().helpers().put("hello", hello);
+  }
+
+  @Test
+  public void registerAfterCompile() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    Template template = handlebars.compile("{{hello}}");
+    assertEquals("variable", template.apply($("hello", "variable")));
+    handlebars.registerHelper("hello", hello);
+    assertEquals("Hello x", template.apply("x"));
+  }
+
+  private static Map<String, Object> $(final String name, final Object value) {
+    return Literals.<String, Object> $(name, value);
+  }
+}
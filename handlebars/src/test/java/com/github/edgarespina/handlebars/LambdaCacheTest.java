@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.cache.ConcurrentMapCache;
+import com.github.edgarespina.handlebars.io.ClassTemplateLoader;
+
+/**
+ * Unit test for the templates created by lambdas.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class LambdaCacheTest {
+
+  @Test
+  public void lambdaOutputSkipsTemplateCache() throws IOException {
+    final AtomicInteger puts = new AtomicInteger();
+    Handlebars handlebars =
+        new Handlebars(new ClassTemplateLoader(), new ConcurrentMapCache() {
+          @Override
+          public void put(final Object key, final Template template) {
+            puts.incrementAndGet();
+            super.put(key, template);
+          }
+        });
+    Template template = handlebars.compile("{{#wrap}}{{name}}{{/wrap}}");
+    assertEquals(1, puts.get());
+    Lambda<Object, Object> wrap = new Lambda<Object, Object>() {
+      @Override
+      public Object apply(final Object context, final Template template)
+          throws IOException {
+        return "<b>" + template.text() + "</b>";
+      }
+    };
+    assertEquals("<b>a</b>", template.apply($("wrap", wrap, "name", "a")));
+    assertEquals("<b>b</b>", template.apply($("wrap", wrap, "name", "b")));
+    assertEquals(1, puts.get());
+  }
+
+  @Test
+  public void stableLambda() throws IOException {
+    final AtomicInteger calls = new AtomicInteger();
+    Lambda<Object, Object> stable = new StableLambda<Object, Object>() {
+      @Override
+      public Object apply(final Object context, final Template template)
+          throws IOException {
+        calls.incrementAndGet();
+        return "[{{name}}]";
+      }
+    };
+    Template template = new Handlebars().compile("{{lambda}}");
+    assertEquals("[a]", template.apply($("lambda", stable, "name", "a")));
+    assertEquals("[b]", template.apply($("lambda", stable, "name", "b")));
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void volatileLambda() throws IOException {
+    final AtomicInteger calls = new AtomicInteger();
+    Lambda<Object, Object> lambda = new Lambda<Object, Object>() {
+      @Override
+      public Object apply(final Object context, final Template template)
+          throws IOException {
+        return "{{name}}" + calls.incrementAndGet();
+      }
+    };
+    Template template = new Handlebars().compile("{{lambda}}");
+    assertEquals("a1", template.apply($("lambda", lambda, "name", "a")));
+    assertEquals("a2", template.apply($("lambda", lambda, "name", "a")));
+  }
+
+  private static Map<String, Object> $(final Object... values) {
+    return Literals.<String, Object> $((String) values[0], values[1])
+        .$((String) values[2], values[3]);
+  }
+}
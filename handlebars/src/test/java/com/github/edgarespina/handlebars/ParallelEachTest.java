@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for parallel {@link BuiltInHelpers#EACH}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class ParallelEachTest {
+
+  private ExecutorService executor;
+
+  private Handlebars handlebars;
+
+  @Before
+  public void setup() {
+    executor = Executors.newFixedThreadPool(2);
+    handlebars = new Handlebars();
+    handlebars.setExecutor(executor);
+  }
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void sameOutputAsSequential() throws IOException {
+    List<Object> items = items(1000);
+    String sequential =
+        handlebars.compile("{{#each this}}{{this}},{{/each}}").apply(items)
+            .toString();
+    String parallel =
+        handlebars.compile("{{#each this parallel=true}}{{this}},{{/each}}")
+            .apply(items).toString();
+    assertEquals(sequential, parallel);
+  }
+
+  @Test
+  public void chunks() throws IOException {
+    assertEquals("0,1,2,",
+        handlebars.compile("{{#each this parallel=true chunks=8}}{{this}},"
+            + "{{/each}}").apply(items(3)));
+  }
+
+  @Test
+  public void chunksAsString() throws IOException {
+    assertEquals("0,1,2,",
+        handlebars.compile("{{#each this parallel=true chunks=\"2\"}}{{this}},"
+            + "{{/each}}").apply(items(3)));
+  }
+
+  @Test(expected = HandlebarsException.class)
+  public void badChunks() throws IOException {
+    handlebars.compile("{{#each this parallel=true chunks=0}}{{this}}"
+        + "{{/each}}").apply(items(3));
+  }
+
+  @Test
+  public void sharedStorage() throws IOException {
+    assertTrue(Context.newContext(items(1)).storage()
+        instanceof ConcurrentMap);
+    handlebars.registerHelper("save", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options)
+          throws IOException {
+        options.partial("p" + context, options.fn);
+        return options.fn();
+      }
+    });
+    Template template = handlebars.compile(
+        "{{#each this parallel=true chunks=4}}{{#save this}}x{{/save}}"
+            + "{{/each}}");
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      expected.append("x");
+    }
+    assertEquals(expected.toString(), template.apply(items(200)));
+  }
+
+  @Test
+  public void nested() throws IOException {
+    List<Object> rows = new ArrayList<Object>();
+    for (int i = 0; i < 20; i++) {
+      rows.add(items(10));
+    }
+    Template template =
+        handlebars.compile("{{#each this parallel=true}}"
+            + "{{#each this parallel=true}}{{this}}{{/each}}|{{/each}}");
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      expected.append("0123456789|");
+    }
+    assertEquals(expected.toString(), template.apply(rows));
+  }
+
+  @Test
+  public void noExecutor() throws IOException {
+    handlebars.setExecutor(null);
+    assertEquals("0,1,2,",
+        handlebars.compile("{{#each this parallel=true}}{{this}},{{/each}}")
+            .apply(items(3)));
+  }
+
+  @Test
+  public void emptyList() throws IOException {
+    assertEquals("empty",
+        handlebars.compile("{{#each this parallel=true}}{{this}}{{else}}"
+            + "empty{{/each}}").apply(items(0)));
+  }
+
+  @Test(expected = HandlebarsException.class)
+  public void error() throws IOException {
+    handlebars.registerHelper("fail", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options)
+          throws IOException {
+        throw new IllegalStateException("fail");
+      }
+    });
+    handlebars.compile("{{#each this parallel=true}}{{fail this}}{{/each}}")
+        .apply(items(10));
+  }
+
+  private static List<Object> items(final int size) {
+    List<Object> items = new ArrayList<Object>(size);
+    for (int i = 0; i < size; i++) {
+      items.add(i);
+    }
+    return items;
+  }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+import static com.github.edgarespina.handlebars.Literals.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.RenderStatistics.Timer;
+
+/**
+ * Unit test for {@link RenderListener} and {@link RenderStatistics}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class RenderStatisticsTest {
+
+  Map<String, String> source =
+      $("/page.hbs", "{{#each items}}{{> item}}{{/each}}{{upper title}}")
+          .$("/item.hbs", "<li>{{this}}</li>");
+
+  private Handlebars handlebars() {
+    Handlebars handlebars = new Handlebars(new MapTemplateLoader(source));
+    handlebars.registerHelper("upper", new Helper<String>() {
+      @Override
+      public CharSequence apply(final String context, final Options options)
+          throws IOException {
+        return context.toUpperCase();
+      }
+    });
+    return handlebars;
+  }
+
+  @Test
+  public void timers() throws IOException {
+    Handlebars handlebars = handlebars();
+    RenderStatistics statistics = new RenderStatistics();
+    handlebars.setRenderListener(statistics);
+    Template template = handlebars.compile(URI.create("page"));
+    Map<String, Object> context =
+        $("items", (Object) Arrays.asList("a", "b", "c"))
+            .$("title", "t");
+    assertEquals("<li>a</li><li>b</li><li>c</li>T", template.apply(context));
+    template.apply(context);
+
+    Timer page = statistics.templates().get("/page.hbs");
+    assertEquals(2, page.count());
+    assertTrue(page.max() > 0);
+    assertTrue(page.total() >= page.max());
+
+    assertEquals(6, statistics.partials().get("item").count());
+    // Partials are reported as partials only.
+    assertFalse(statistics.templates().containsKey("/item.hbs"));
+    assertEquals(2, statistics.helpers().get("each").count());
+    assertEquals(2, statistics.helpers().get("upper").count());
+    assertTrue(page.total() >= statistics.helpers().get("each").total());
+  }
+
+  @Test
+  public void sectionsArentHelpers() throws IOException {
+    Handlebars handlebars = handlebars();
+    RenderStatistics statistics = new RenderStatistics();
+    handlebars.setRenderListener(statistics);
+    Template template = handlebars.compile("{{#title}}{{.}}{{/title}}");
+    assertEquals("t", template.apply($("title", "t")));
+    assertEquals(1, statistics.templates().get("/embedded.hbs").count());
+    assertFalse(statistics.helpers().containsKey("title"));
+    assertTrue(statistics.partials().isEmpty());
+  }
+
+  @Test
+  public void compileAndParse() throws IOException {
+    Handlebars handlebars = handlebars();
+    RenderStatistics statistics = new RenderStatistics();
+    handlebars.setRenderListener(statistics);
+    handlebars.compile(URI.create("page"));
+    assertEquals(1, statistics.compiles().get("/page.hbs").count());
+    assertEquals(1, statistics.parses().get("/page.hbs").count());
+    assertEquals(1, statistics.parses().get("/item.hbs").count());
+    assertTrue(statistics.compiles().get("/page.hbs").total() >= statistics
+        .parses().get("/page.hbs").total());
+  }
+
+  @Test
+  public void sameNameForCompileAndParse() throws IOException {
+    Handlebars handlebars = handlebars();
+    RenderStatistics statistics = new RenderStatistics();
+    handlebars.setRenderListener(statistics);
+    handlebars.compile("{{title}}");
+    handlebars.compile(URI.create("item"));
+    assertEquals(statistics.parses().keySet(),
+        statistics.compiles().keySet());
+  }
+
+  @Test
+  public void positionsAndSizes() throws IOException {
+    Handlebars handlebars = handlebars();
+    final List<String> events = new ArrayList<String>();
+    handlebars.setRenderListener(new RenderListener() {
+      @Override
+      public void compile(final String filename, final long nanos) {
+      }
+
+      @Override
+      public void parse(final String filename, final int length,
+          final long nanos) {
+        events.add("parse " + filename + " " + length);
+      }
+
+      @Override
+      public void template(final String filename, final int size,
+          final long nanos) {
+        events.add("template " + filename + " " + size);
+      }
+
+      @Override
+      public void partial(final String path, final String filename,
+          final int line, final long nanos) {
+        events.add("partial " + path + " " + filename + ":" + line);
+      }
+
+      @Override
+      public void helper(final String name, final String filename,
+          final int line, final int size, final long nanos) {
+        events.add("helper " + name + " " + filename + ":" + line + " "
+            + size);
+      }
+    });
+    Template template = handlebars.compile("hi\n{{upper title}}");
+    assertEquals("hi\nT", template.apply($("title", "t")));
+    assertEquals(Arrays.asList("parse /embedded.hbs 18",
+        "helper upper /embedded.hbs:2 1", "template /embedded.hbs 4"),
+        events);
+  }
+
+  @Test
+  public void disabled() throws IOException {
+    Handlebars handlebars = handlebars();
+    RenderStatistics statistics = new RenderStatistics();
+    handlebars.setRenderListener(statistics);
+    handlebars.setRenderListener(null);
+    assertNull(handlebars.getRenderListener());
+    handlebars.compile("{{upper title}}").apply($("title", "t"));
+    assertTrue(statistics.templates().isEmpty());
+    assertTrue(statistics.helpers().isEmpty());
+  }
+}
@@ -0,0 +1,226 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.context.JavaBeanValueResolver;
+
+/**
+ * Unit test for {@link Template#bind(Class)}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class TemplateBindTest {
+
+  public static class Item {
+    private final String name;
+
+    public Item(final String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+  public static class Order {
+    public String getCustomer() {
+      return "edgar";
+    }
+
+    public boolean isPaid() {
+      return true;
+    }
+
+    public Item getFirst() {
+      return new Item("first");
+    }
+
+    public List<Item> getItems() {
+      return Arrays.asList(new Item("a"), new Item("b"));
+    }
+
+    public Item[] getExtras() {
+      return new Item[] {new Item("x") };
+    }
+
+    public Map<String, Object> getAttributes() {
+      Map<String, Object> attributes = new HashMap<String, Object>();
+      attributes.put("color", "red");
+      return attributes;
+    }
+  }
+
+  public interface Named {
+    String getName();
+  }
+
+  public static class NamedMap extends HashMap<String, Object> implements
+      Named {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public String getName() {
+      return "getter";
+    }
+  }
+
+  @Test
+  public void bind() throws IOException {
+    Template template = new Handlebars().compile(
+        "{{customer}}:{{first.name}}:"
+            + "{{#each items}}{{name}}{{customer}}{{/each}}:"
+            + "{{#extras}}{{name}}{{/extras}}:{{#paid}}paid{{/paid}}:"
+            + "{{attributes.color}}:{{#with first}}{{name}}{{/with}}");
+    assertSame(template, template.bind(Order.class));
+    assertEquals("edgar:first:aedgarbedgar:x:paid:red:first",
+        template.apply(new Order()));
+  }
+
+  @Test
+  public void fallbackToDynamicLookup() throws IOException {
+    Template template =
+        new Handlebars().compile("{{customer}}").bind(Order.class);
+    Map<String, Object> model = new HashMap<String, Object>();
+    model.put("customer", "map");
+    assertEquals("map", template.apply(model));
+  }
+
+  @Test
+  public void unknownProperty() throws IOException {
+    try {
+      new Handlebars().compile("Hi\n  {{customr}}").bind(Order.class);
+      fail("unknown property expected");
+    } catch (HandlebarsException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().startsWith("/embedded.hbs:2:5:"));
+      assertTrue(ex.getMessage(), ex.getMessage().contains("'customr'"));
+    }
+  }
+
+  @Test(expected = HandlebarsException.class)
+  public void unknownNestedProperty() throws IOException {
+    new Handlebars().compile("{{first.nam}}").bind(Order.class);
+  }
+
+  @Test(expected = HandlebarsException.class)
+  public void unknownElementProperty() throws IOException {
+    new Handlebars().compile("{{#items}}{{nam}}{{/items}}")
+        .bind(Order.class);
+  }
+
+  @Test
+  public void partials() throws IOException {
+    Map<String, String> templates = new HashMap<String, String>();
+    templates.put("/order.hbs", "{{#items}}{{>item}}{{/items}}");
+    templates.put("/item.hbs", "{{name}}");
+    Handlebars handlebars =
+        new Handlebars(new MapTemplateLoader(templates));
+    Template template = handlebars.compile(URI.create("order"));
+    assertEquals("ab", template.bind(Order.class).apply(new Order()));
+
+    try {
+      new Handlebars(new MapTemplateLoader(templates))
+          .compile(URI.create("order")).bind(Item.class);
+      fail("unknown property expected");
+    } catch (HandlebarsException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().contains("'items'"));
+    }
+  }
+
+  @Test
+  public void bindOnce() throws IOException {
+    Template template = new Handlebars().compile("{{name}}").bind(Item.class);
+    assertSame(template, template.bind(Item.class));
+    try {
+      template.bind(Map.class);
+      fail("bound template expected");
+    } catch (IllegalStateException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().contains(
+          Item.class.getName()));
+    }
+    assertEquals("a", template.apply(new Item("a")));
+  }
+
+  @Test
+  public void sharedPartialKeepsFirstBinding() throws IOException {
+    Map<String, String> templates = new HashMap<String, String>();
+    templates.put("/order.hbs", "{{#first}}{{>name}}{{/first}}");
+    templates.put("/item.hbs", "{{>name}}");
+    templates.put("/name.hbs", "{{name}}");
+    Handlebars handlebars =
+        new Handlebars(new MapTemplateLoader(templates));
+    Template order =
+        handlebars.compile(URI.create("order")).bind(Order.class);
+    Map<String, Object> model = new HashMap<String, Object>();
+    model.put("name", "map");
+    Template item = handlebars.compile(URI.create("item")).bind(Map.class);
+    assertEquals("first", order.apply(new Order()));
+    assertEquals("map", item.apply(model));
+  }
+
+  @Test
+  public void customResolvers() throws IOException {
+    ValueResolver upper = new ValueResolver() {
+      @Override
+      public Object resolve(final Object context, final String name) {
+        Object value = JavaBeanValueResolver.INSTANCE.resolve(context, name);
+        return value instanceof String ? ((String) value).toUpperCase()
+            : value;
+      }
+    };
+    Handlebars handlebars = new Handlebars();
+    Template template = handlebars.compile("{{customer}}");
+    Context context = Context.newBuilder(new Order()).resolver(upper).build();
+    assertEquals("EDGAR", template.apply(context));
+    template.bind(Order.class);
+    assertEquals("EDGAR", template.apply(context));
+    assertEquals("edgar", template.apply(new Order()));
+  }
+
+  @Test
+  public void failedBindChangesNothing() throws IOException {
+    NamedMap model = new NamedMap();
+    model.put("name", "map");
+    Template template = new Handlebars().compile("{{name}}{{nam}}");
+    try {
+      template.bind(Named.class);
+      fail("unknown property expected");
+    } catch (HandlebarsException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().contains("'nam'"));
+    }
+    assertEquals("map", template.apply(model));
+
+    assertEquals("getter", new Handlebars().compile("{{name}}")
+        .bind(Named.class).apply(model));
+  }
+}
@@ -21,6 +21,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -72,6 +74,16 @@ public class ValueResolverTest {
     assertEquals("b", context.get("childProperty"));
   }
 
+  @Test
+  public void javaBeanResolverCapitalizedProperty() {
+    Context context = Context
+        .newBuilder(new Base("a", "b"))
+        .resolver(JavaBeanValueResolver.INSTANCE)
+        .build();
+    assertEquals("a", context.get("BaseProperty"));
+    assertEquals(null, context.get("getBaseProperty"));
+  }
+
   @Test
   public void methodResolver() {
     Context context = Context
@@ -94,6 +106,38 @@ public class ValueResolverTest {
     assertEquals("b", context.get("child"));
   }
 
+  @Test
+  public void customMatches() {
+    ValueResolver resolver = new FieldValueResolver() {
+      @Override
+      public boolean matches(final Field field, final String name) {
+        return super.matches(field, name.toLowerCase());
+      }
+    };
+    Context context = Context
+        .newBuilder(new Base("a", "b"))
+        .resolver(resolver)
+        .build();
+    assertEquals("a", context.get("BASE"));
+    assertEquals("b", context.get("Child"));
+  }
+
+  @Test
+  public void customFindMember() {
+    ValueResolver resolver = new MethodValueResolver() {
+      @Override
+      protected Method findMember(final Class<?> clazz, final String name) {
+        return super.findMember(clazz, "get" + name);
+      }
+    };
+    Context context = Context
+        .newBuilder(new Base("a", "b"))
+        .resolver(resolver)
+        .build();
+    assertEquals("a", context.get("BaseProperty"));
+    assertEquals(null, context.get("missing"));
+  }
+
   @Test
   public void mapResolver() {
     Map<String, Object> map = new HashMap<String, Object>();
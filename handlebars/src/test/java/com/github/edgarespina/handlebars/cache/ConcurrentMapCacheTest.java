@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.Template;
+import com.github.edgarespina.handlebars.io.ClassTemplateLoader;
+
+/**
+ * Unit test for the {@link ConcurrentMapCache} statistics.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class ConcurrentMapCacheTest {
+
+  @Test
+  public void stats() throws IOException {
+    ConcurrentMapCache cache = new ConcurrentMapCache();
+    Handlebars handlebars = new Handlebars(new ClassTemplateLoader(), cache);
+    handlebars.compile("{{one}}");
+    handlebars.compile("{{one}}");
+    handlebars.compile("{{one}}");
+    handlebars.compile("{{two}}");
+
+    CacheStats stats = cache.stats();
+    assertEquals(2, stats.hits());
+    assertEquals(2, stats.misses());
+    assertEquals(.5, stats.hitRate(), 0);
+    assertEquals(2, stats.loads());
+    assertEquals(2, stats.size());
+    assertTrue(stats.maxLoadTime(TimeUnit.NANOSECONDS) > 0);
+    assertTrue(stats.totalLoadTime(TimeUnit.NANOSECONDS) >= stats
+        .maxLoadTime(TimeUnit.NANOSECONDS));
+    assertTrue(stats.retainedSize() > 0);
+  }
+
+  @Test
+  public void evictAndClear() throws IOException {
+    ConcurrentMapCache cache = new ConcurrentMapCache();
+    Template template = new Handlebars().compile("{{one}}");
+    cache.put("a", template);
+    cache.put("b", template);
+    long retainedSize = cache.stats().retainedSize();
+    cache.evict("a");
+    assertEquals(1, cache.stats().size());
+    assertEquals(retainedSize / 2, cache.stats().retainedSize());
+    cache.clear();
+    assertEquals(0, cache.stats().size());
+    assertEquals(0, cache.stats().retainedSize());
+    assertEquals(2, cache.stats().loads());
+  }
+
+  @Test
+  public void accessTimes() throws Exception {
+    ConcurrentMapCache cache = new ConcurrentMapCache();
+    Template template = new Handlebars().compile("{{one}}");
+    long start = System.currentTimeMillis();
+    cache.put("a", template);
+    cache.put("b", template);
+    Thread.sleep(5);
+    long access = System.currentTimeMillis();
+    cache.get("b");
+
+    Map<Object, Long> accessTimes = cache.accessTimes();
+    assertEquals(2, accessTimes.size());
+    assertTrue(accessTimes.get("a") >= start);
+    assertTrue(accessTimes.get("a") < access);
+    assertTrue(accessTimes.get("b") >= access);
+  }
+}
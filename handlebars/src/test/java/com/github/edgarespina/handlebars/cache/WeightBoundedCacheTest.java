@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.Template;
+import com.github.edgarespina.handlebars.io.ClassTemplateLoader;
+
+/**
+ * Unit test for {@link WeightBoundedCache}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class WeightBoundedCacheTest {
+
+  @Test
+  public void evictLeastRecentlyUsed() throws IOException {
+    Template template = new Handlebars().compile("<p>{{name}}</p>");
+    long size = template.retainedSize();
+    WeightBoundedCache cache = new WeightBoundedCache(size * 2);
+    cache.put("a", template);
+    cache.put("b", template);
+    assertEquals(size * 2, cache.weight());
+    cache.get("a");
+    cache.put("c", template);
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("c"));
+    assertEquals(size * 2, cache.weight());
+    assertEquals(size * 2, cache.stats().retainedSize());
+    assertEquals(2, cache.stats().size());
+  }
+
+  @Test
+  public void keepNewest() throws IOException {
+    Template template = new Handlebars().compile("<p>{{name}}</p>");
+    WeightBoundedCache cache = new WeightBoundedCache(1);
+    cache.put("a", template);
+    cache.put("b", template);
+    assertNull(cache.get("a"));
+    assertNotNull(cache.get("b"));
+  }
+
+  @Test
+  public void replaceEvictAndClear() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    Template small = handlebars.compile("{{a}}");
+    Template big = handlebars.compile("<div>{{a}}</div>");
+    WeightBoundedCache cache = new WeightBoundedCache(Long.MAX_VALUE);
+    cache.put("a", small);
+    cache.put("a", big);
+    assertEquals(big.retainedSize(), cache.weight());
+    cache.put("b", small);
+    cache.evict("a");
+    assertEquals(small.retainedSize(), cache.weight());
+    cache.clear();
+    assertEquals(0, cache.weight());
+  }
+
+  @Test
+  public void statistics() throws IOException {
+    WeightBoundedCache cache = new WeightBoundedCache(1024 * 1024);
+    Handlebars handlebars = new Handlebars(
+        new ClassTemplateLoader(), cache);
+    handlebars.compile("{{a}}");
+    handlebars.compile("{{a}}");
+    CacheStats stats = cache.stats();
+    assertEquals(1, stats.hits());
+    assertEquals(1, stats.misses());
+    assertEquals(1, stats.loads());
+    assertEquals(1, cache.accessTimes().size());
+  }
+
+  @Test
+  public void concurrent() throws Exception {
+    final Template template = new Handlebars().compile("<p>{{name}}</p>");
+    final long size = template.retainedSize();
+    final WeightBoundedCache cache = new WeightBoundedCache(size * 10);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> results = new ArrayList<Future<?>>();
+    for (int i = 0; i < 8; i++) {
+      final int n = i;
+      results.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() {
+          for (int j = 0; j < 1000; j++) {
+            Object key = (n * j) % 50;
+            if (cache.get(key) == null) {
+              cache.put(key, template);
+            }
+          }
+          return null;
+        }
+      }));
+    }
+    for (Future<?> result : results) {
+      result.get();
+    }
+    executor.shutdown();
+    assertEquals(cache.stats().retainedSize(), cache.weight());
+    assertTrue(cache.weight() <= size * 10);
+  }
+}
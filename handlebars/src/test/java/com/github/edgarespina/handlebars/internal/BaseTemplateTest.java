@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.HandlebarsException;
+
+/**
+ * Unit test for the positions of {@link BaseTemplate}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class BaseTemplateTest {
+
+  public static class Model {
+    public String getName() {
+      return "model";
+    }
+  }
+
+  @Test
+  public void packedPosition() {
+    BaseTemplate text = new Text("a").position(7, 12);
+    assertEquals(7, text.line());
+    assertEquals(12, text.column());
+    assertNull(text.file());
+    text.moveLines(3);
+    assertEquals(10, text.line());
+    assertEquals(12, text.column());
+  }
+
+  @Test
+  public void sideTablePosition() {
+    SourceFile file = new SourceFile("file.hbs");
+    BaseTemplate text = new Text("a").file(file).position(2, 5000);
+    assertEquals(2, text.line());
+    assertEquals(5000, text.column());
+    assertEquals("file.hbs", text.filename());
+    text.moveLines(-1);
+    assertEquals(1, text.line());
+    assertEquals(5000, text.column());
+  }
+
+  @Test
+  public void nodesShareTheirFile() throws IOException {
+    TemplateList template = (TemplateList) new Handlebars()
+        .compile("{{a}} {{b}}");
+    SourceFile file = template.file();
+    for (BaseTemplate node : template) {
+      if (node instanceof Variable) {
+        assertTrue(node.file() == file);
+      }
+    }
+  }
+
+  @Test
+  public void longLineErrors() throws IOException {
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      source.append('x');
+    }
+    source.append("{{missing}}");
+    try {
+      new Handlebars().compile(source.toString()).bind(Model.class);
+      fail("Expected: missing");
+    } catch (HandlebarsException ex) {
+      assertTrue(ex.getMessage(),
+          ex.getMessage().startsWith("/embedded.hbs:1:5003: "));
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.Helper;
+import com.github.edgarespina.handlebars.Options;
+import com.github.edgarespina.handlebars.PureHelper;
+import com.github.edgarespina.handlebars.Template;
+
+/**
+ * Unit test for the templates folded at compile time.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class FoldedTest {
+
+  @Test
+  public void literalConditions() throws IOException {
+    String source = "{{#if true}}a{{/if}}{{#if false}}c{{/if}}"
+        + "{{#unless false}}{{name}}{{/unless}}{{#if \"x\"}}d{{/if}}";
+    TemplateList template = (TemplateList) new Handlebars().compile(source);
+    for (BaseTemplate node : template) {
+      assertTrue(node.text(), node instanceof Folded);
+    }
+    assertEquals(source, template.text());
+    assertEquals("aedgard", template.apply(
+        Collections.singletonMap("name", "edgar")));
+    assertEquals("b",
+        new Handlebars().compile("{{#if false}}a{{else}}b{{/if}}").apply(null));
+  }
+
+  @Test
+  public void referenceConditions() throws IOException {
+    Template template =
+        new Handlebars().compile("{{#if yes}}a{{/if}}{{#if}}b{{/if}}");
+    for (BaseTemplate node : (TemplateList) template) {
+      assertFalse(node.text(), node instanceof Folded);
+    }
+  }
+
+  @Test
+  public void pureHelper() throws IOException {
+    final AtomicInteger calls = new AtomicInteger();
+    Handlebars handlebars = new Handlebars();
+    handlebars.registerHelper("upper", new PureHelper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options) {
+        calls.incrementAndGet();
+        return context.toString().toUpperCase() + options.hash("suffix", "");
+      }
+    });
+    Template template =
+        handlebars.compile("{{upper \"<a>\" suffix=\"!\"}} {{upper name}}");
+    assertEquals(1, calls.get());
+    Object model = Collections.singletonMap("name", "b");
+    assertEquals("&lt;A&gt;! B", template.apply(model));
+    assertEquals("&lt;A&gt;! B", template.apply(model));
+    // Only the call with a reference is applied again.
+    assertEquals(3, calls.get());
+    assertEquals("{{upper \"<a>\" suffix=\"!\"}} {{upper name}}",
+        template.text());
+  }
+
+  @Test
+  public void impureHelper() throws IOException {
+    final AtomicInteger calls = new AtomicInteger();
+    Handlebars handlebars = new Handlebars();
+    handlebars.registerHelper("count", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options) {
+        return context + ":" + calls.incrementAndGet();
+      }
+    });
+    Template template = handlebars.compile("{{count 1}}");
+    assertEquals(0, calls.get());
+    assertEquals("1:1", template.apply(null));
+    assertEquals("1:2", template.apply(null));
+  }
+
+  @Test
+  public void flatten() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    handlebars.setFlatten(true);
+    Template template = handlebars.compile(
+        "<{{#if true}}{{#unless true}}x{{else}}y{{/unless}}{{/if}}>");
+    assertEquals("<y>", template.apply(null));
+    // <, both folds, y and >: the branches are inlined.
+    assertEquals(12, ((Program) template).code().length);
+    handlebars.registerHelper("unless", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options) {
+        return "z";
+      }
+    });
+    assertEquals("<z>", template.apply(null));
+  }
+
+  @Test
+  public void helpersRegisteredLater() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    handlebars.registerHelper("upper", new PureHelper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options) {
+        return context.toString().toUpperCase();
+      }
+    });
+    Template template =
+        handlebars.compile("{{#if true}}a{{/if}}:{{upper \"b\"}}");
+    assertEquals("a:B", template.apply(null));
+
+    handlebars.registerHelper("if", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options)
+          throws IOException {
+        return "[" + options.fn() + "]";
+      }
+    });
+    handlebars.registerHelper("upper", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options) {
+        return context + "!";
+      }
+    });
+    assertEquals("[a]:b!", template.apply(null));
+  }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import static com.github.edgarespina.handlebars.Literals.$;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.MapTemplateLoader;
+import com.github.edgarespina.handlebars.Template;
+
+/**
+ * Unit test for {@link Footprint} and {@link Template#retainedSize()}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class FootprintTest {
+
+  private static Footprint measure(final Template template) {
+    Footprint footprint = new Footprint();
+    ((BaseTemplate) template).measure(footprint);
+    return footprint;
+  }
+
+  @Test
+  public void nodesAndText() throws IOException {
+    Template template = new Handlebars().compile("Hello {{name}}!");
+    Footprint footprint = measure(template);
+    // The list, "Hello", " ", {{name}} and "!".
+    assertEquals(5, footprint.nodes());
+    assertEquals(7, footprint.chars());
+    assertEquals(footprint.bytes(), template.retainedSize());
+  }
+
+  @Test
+  public void growsWithContent() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    long small = handlebars.compile("<p>{{name}}</p>").retainedSize();
+    long text =
+        handlebars.compile("<p class=\"content\">{{name}}</p>").retainedSize();
+    long hash = handlebars.compile("<p>{{name a=1 b=\"x\"}}</p>")
+        .retainedSize();
+    assertTrue(small > 0);
+    assertTrue(text > small);
+    assertTrue(hash > small);
+  }
+
+  @Test
+  public void sharedPartialsAreCountedOnce() throws IOException {
+    Handlebars handlebars = new Handlebars(new MapTemplateLoader(
+        $("/once.hbs", "{{> item}}").$("/twice.hbs", "{{> item}}{{> item}}")
+            .$("/item.hbs", "<li>{{this}}</li>")));
+    Footprint once = measure(handlebars.compile(URI.create("once")));
+    Footprint twice = measure(handlebars.compile(URI.create("twice")));
+    // A list with the partial.
+    assertEquals(once.nodes(), twice.nodes());
+    assertEquals(once.chars(), twice.chars());
+  }
+
+  @Test
+  public void recursivePartials() throws IOException {
+    Handlebars handlebars = new Handlebars(new MapTemplateLoader(
+        $("/tree.hbs", "<ul>{{#children}}{{> tree}}{{/children}}</ul>")));
+    Footprint footprint = measure(handlebars.compile(URI.create("tree")));
+    assertTrue(footprint.nodes() > 0);
+  }
+}
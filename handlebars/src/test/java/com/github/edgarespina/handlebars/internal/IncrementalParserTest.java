@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.HandlebarsException;
+import com.github.edgarespina.handlebars.Template;
+
+/**
+ * Unit test for {@link IncrementalParser}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class IncrementalParserTest {
+
+  public static class Bean {
+    public String getName() {
+      return "bean";
+    }
+
+    public List<String> getItems() {
+      return Arrays.asList("a", "b");
+    }
+  }
+
+  private static String source(final int sections) {
+    StringBuilder buffer = new StringBuilder();
+    for (int i = 0; i < sections; i++) {
+      buffer.append("<h1>{{name}} ").append(i).append("</h1>\n")
+          .append("{{#items}}\n")
+          .append("  <li>{{.}}</li>\n")
+          .append("{{/items}}\n")
+          .append("   \n")
+          .append("{{! comment }}\n");
+    }
+    return buffer.toString();
+  }
+
+  private static Map<String, Object> model() {
+    Map<String, Object> model = new HashMap<String, Object>();
+    model.put("name", "edgar");
+    model.put("items", Arrays.asList("a", "b"));
+    return model;
+  }
+
+  @Test
+  public void sameOutputAsFullParse() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    String source = source(200);
+    Template template = handlebars.reparse(null, source, 0, source.length());
+    assertTrue(template instanceof ChunkedTemplate);
+    assertTrue(((ChunkedTemplate) template).size() > 1);
+    assertEquals(handlebars.compile(source).apply(model()),
+        template.apply(model()));
+  }
+
+  @Test
+  public void reuseChunks() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    String source = source(200);
+    ChunkedTemplate before = (ChunkedTemplate) handlebars.reparse(null,
+        source, 0, source.length());
+    Map<BaseTemplate, Boolean> chunks =
+        new IdentityHashMap<BaseTemplate, Boolean>();
+    for (int i = 0; i < before.size(); i++) {
+      chunks.put(before.chunk(i), true);
+    }
+    int at = source.indexOf("<h1>{{name}} 100</h1>");
+    String edit = "<p>{{name}}</p>\n";
+    String input = source.substring(0, at) + edit + source.substring(at);
+    ChunkedTemplate after = (ChunkedTemplate) handlebars.reparse(before,
+        input, at, at + edit.length());
+    int reused = 0;
+    for (int i = 0; i < after.size(); i++) {
+      if (chunks.containsKey(after.chunk(i))) {
+        reused++;
+      }
+    }
+    // The edited chunk may be split in two, everything else is reused.
+    assertTrue(after.size() + ":" + reused, reused >= after.size() - 2);
+    assertTrue(reused >= before.size() - 1);
+    assertEquals(handlebars.compile(input).apply(model()),
+        after.apply(model()));
+  }
+
+  @Test
+  public void moveLines() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    String source = source(100) + "{{nam}}\n";
+    Template template =
+        handlebars.reparse(null, source, 0, source.length());
+    assertEquals(601, line(template));
+    String input = "\n\n\n" + source;
+    template = handlebars.reparse(template, input, 0, 3);
+    assertEquals(604, line(template));
+  }
+
+  @Test
+  public void newDelimiters() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    String source = source(20) + "{{=<% %>=}}<%name%>\n";
+    Template template =
+        handlebars.reparse(null, source, 0, source.length());
+    assertFalse(template instanceof ChunkedTemplate);
+    assertEquals(handlebars.compile(source).apply(model()),
+        template.apply(model()));
+  }
+
+  @Test
+  public void sameErrorAsFullParse() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    String source = source(20) + "{{#items}}\n{{/item}}\n";
+    String expected = null;
+    try {
+      handlebars.compile(source);
+      fail("parse error expected");
+    } catch (HandlebarsException ex) {
+      expected = ex.getMessage();
+    }
+    try {
+      handlebars.reparse(null, source, 0, source.length());
+      fail("parse error expected");
+    } catch (HandlebarsException ex) {
+      assertEquals(expected, ex.getMessage());
+    }
+  }
+
+  @Test
+  public void unchangedInput() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    String source = source(50);
+    ChunkedTemplate before = (ChunkedTemplate) handlebars.reparse(null,
+        source, 0, source.length());
+    ChunkedTemplate after =
+        (ChunkedTemplate) handlebars.reparse(before, source, 0, 0);
+    for (int i = 0; i < after.size(); i++) {
+      assertSame(before.chunk(i), after.chunk(i));
+    }
+  }
+
+  private static int line(final Template template) {
+    try {
+      template.bind(Bean.class);
+      fail("unknown property expected");
+      return -1;
+    } catch (HandlebarsException ex) {
+      String message = ex.getMessage();
+      return Integer.parseInt(message.split(":")[1]);
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.Handlebars;
+
+/**
+ * Unit test for the static text shared by the templates of a
+ * {@link Handlebars} object.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class InternTest {
+
+  @Test
+  public void intern() {
+    Handlebars handlebars = new Handlebars();
+    String text = handlebars.intern(new String("<li>"));
+    assertSame(text, handlebars.intern(new String("<li>")));
+    assertNotSame(text, new Handlebars().intern(new String("<li>")));
+  }
+
+  @Test
+  public void sharedAcrossTemplates() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    Iterator<BaseTemplate> first =
+        ((TemplateList) handlebars.compile("<li>{{a}}</li>\n")).iterator();
+    Iterator<BaseTemplate> second =
+        ((TemplateList) handlebars.compile("<li>{{b}}</li>\n")).iterator();
+    while (first.hasNext()) {
+      BaseTemplate a = first.next();
+      BaseTemplate b = second.next();
+      if (a instanceof Text) {
+        assertNotSame(a, b);
+        assertSame(a.text(), b.text());
+      }
+    }
+  }
+
+  @Test
+  public void repeatedTextIsStoredOnce() throws IOException {
+    StringBuilder source = new StringBuilder("<ul>\n");
+    for (int i = 0; i < 100; i++) {
+      source.append("  <li>{{item").append(i).append("}}</li>\n");
+    }
+    source.append("</ul>");
+    Footprint footprint = new Footprint();
+    ((BaseTemplate) new Handlebars().compile(source.toString()))
+        .measure(footprint);
+    // <ul>, </ul>, <li>, </li>, blank and new line.
+    assertEquals(20, footprint.chars());
+    assertTrue(footprint.bytes() < 100 * 512);
+  }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.Helper;
+import com.github.edgarespina.handlebars.MapTemplateLoader;
+import com.github.edgarespina.handlebars.Options;
+import com.github.edgarespina.handlebars.Template;
+
+/**
+ * Unit test for {@link Minifier}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class MinifierTest {
+
+  @Test
+  public void collapse() throws IOException {
+    assertEquals("<ul>\n<li>a</li>\n<li>b</li>\n</ul>\n",
+        minify("<ul>\n  {{#list}}\n    <li>{{.}}</li>\n  {{/list}}\n</ul>\n")
+            .apply(Collections.singletonMap("list", Arrays.asList("a", "b"))));
+  }
+
+  @Test
+  public void variablesEndRuns() throws IOException {
+    assertEquals("a b c ",
+        minify("a   {{b}}   c   ").apply(Collections.singletonMap("b", "b")));
+  }
+
+  @Test
+  public void raw() throws IOException {
+    String pre = "<pre>\n  x\n    y\n</pre>";
+    String textarea = "<textarea name=\"a\">  {{a}}  </textarea>";
+    String output = "<textarea name=\"a\">    </textarea>";
+    String script = "<SCRIPT>\n  var a;\n</SCRIPT>";
+    assertEquals(pre + " " + output + " " + script + " <p> z</p>",
+        minify(pre + "   " + textarea + "  " + script + "  <p>   z</p>")
+            .apply(null));
+  }
+
+  @Test
+  public void startTagInWord() throws IOException {
+    assertEquals("<pre>x</pre> <preview> y",
+        minify("<pre>x</pre>  <preview>   y").apply(null));
+  }
+
+  @Test
+  public void standalone() throws IOException {
+    assertEquals("<p>\nx\n</p>",
+        minify("<p>\n  {{#a}}\n  x\n  {{/a}}\n</p>").apply(
+            Collections.singletonMap("a", true)));
+  }
+
+  @Test
+  public void helperSections() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    handlebars.setMinify(true);
+    handlebars.registerHelper("b", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options)
+          throws IOException {
+        return "b" + options.fn();
+      }
+    });
+    assertEquals("a {{#b}}   c{{/b}}   d", handlebars.compile(
+        "a {{#b}}   c{{/b}}   d").text());
+    assertEquals("a b c d", handlebars.compile("a {{#b}}   c{{/b}}   d")
+        .apply(null));
+    assertEquals("a c d", handlebars.compile("a {{#if true}}   c {{/if}}   d")
+        .apply(null));
+  }
+
+  @Test
+  public void measure() throws IOException {
+    StringBuilder source = new StringBuilder("<div>\n");
+    for (int i = 0; i < 10; i++) {
+      source.append("        <span>{{a}}</span>\n");
+    }
+    source.append("</div>");
+    Template template = new Handlebars().compile(source.toString());
+    Template minified = minify(source.toString());
+    Footprint before = new Footprint();
+    ((BaseTemplate) template).measure(before);
+    Footprint after = new Footprint();
+    ((BaseTemplate) minified).measure(after);
+    // 8 blanks per line.
+    assertEquals(before.nodes() - 80, after.nodes());
+    Object model = Collections.singletonMap("a", "a");
+    assertEquals(template.apply(model).length() - 80,
+        minified.apply(model).length());
+
+    Minifier minifier = new Minifier();
+    minifier.minify((BaseTemplate) new Handlebars().compile(
+        source.toString()));
+    assertEquals(80, minifier.nodes());
+    assertEquals(80, minifier.chars());
+    assertEquals(source.toString(), minified.text());
+  }
+
+  @Test
+  public void reparse() throws IOException {
+    StringBuilder source = new StringBuilder("<pre>\n");
+    while (source.length() <= IncrementalParser.CHUNK_SIZE * 2) {
+      source.append("    {{a}}   b\n\n");
+    }
+    source.append("</pre>\n  <p>   c</p>\n");
+    Handlebars handlebars = new Handlebars();
+    handlebars.setMinify(true);
+    Object model = Collections.singletonMap("a", "a");
+    String input = source.toString();
+    assertEquals(handlebars.compile(input).apply(model),
+        handlebars.reparse(null, input, 0, input.length()).apply(model));
+  }
+
+  @Test
+  public void partials() throws IOException {
+    Map<String, String> partials = new HashMap<String, String>();
+    partials.put("/p.hbs", "a   {{b}}\n  c\n");
+    Handlebars handlebars = new Handlebars(new MapTemplateLoader(partials));
+    handlebars.setMinify(true);
+    assertEquals("<pre>a   b\n  c\n</pre> a b\nc\n", handlebars.compile(
+        "<pre>{{>p}}</pre>   {{>p}}").apply(
+        Collections.singletonMap("b", "b")));
+  }
+
+  /**
+   * Compile a template in minify mode.
+   *
+   * @param source The template's source.
+   * @return A minified template.
+   * @throws IOException If the template can't be compiled.
+   */
+  private static Template minify(final String source) throws IOException {
+    Handlebars handlebars = new Handlebars();
+    handlebars.setMinify(true);
+    return handlebars.compile(source);
+  }
+}
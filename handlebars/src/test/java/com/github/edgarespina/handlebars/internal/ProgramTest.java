@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.HandlebarsException;
+import com.github.edgarespina.handlebars.Helper;
+import com.github.edgarespina.handlebars.Options;
+import com.github.edgarespina.handlebars.Template;
+import com.github.edgarespina.handlebars.TemplateLoader;
+
+/**
+ * Unit test for {@link Program}: the output must be the same for both
+ * engines.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class ProgramTest {
+
+  @Test
+  public void text() throws IOException {
+    same("Hello World!\n  bye", null);
+  }
+
+  @Test
+  public void variables() throws IOException {
+    same("Hello {{name}}! {{{html}}} {{&html}} {{html}} {{missing}}",
+        model("name", "Handlebars", "html", "<b>&</b>"));
+  }
+
+  @Test
+  public void each() throws IOException {
+    same("<ul>\n{{#items}}\n  <li>{{name}} of {{title}}</li>\n{{/items}}\n"
+        + "</ul>",
+        model("title", "list", "items", Arrays.asList(model("name", "a"),
+            model("name", "b"), null, model("name", "c"))));
+  }
+
+  @Test
+  public void emptyList() throws IOException {
+    same("{{#items}}{{.}}{{else}}none{{/items}}{{#items}}x{{/items}}",
+        model("items", Collections.emptyList()));
+  }
+
+  @Test
+  public void nestedLists() throws IOException {
+    same("{{#rows}}[{{#cols}}{{.}},{{/cols}}]{{/rows}}",
+        model("rows", Arrays.asList(
+            model("cols", Arrays.asList(1, 2, 3)),
+            model("cols", Arrays.asList()),
+            model("cols", new int[] {4, 5}))));
+  }
+
+  @Test
+  public void booleans() throws IOException {
+    String source = "{{#yes}}y{{else}}n{{/yes}}{{#no}}y{{else}}n{{/no}}"
+        + "{{^yes}}y{{else}}n{{/yes}}{{^no}}y{{/no}}{{^missing}}m{{/missing}}";
+    same(source, model("yes", true, "no", false));
+  }
+
+  @Test
+  public void with() throws IOException {
+    same("{{#person}}{{name}} {{age}} {{title}}{{/person}}"
+        + "{{#missing}}x{{else}}y{{/missing}}!",
+        model("title", "dr", "person", model("name", "edgar", "age", 33)));
+  }
+
+  @Test
+  public void helpers() throws IOException {
+    Handlebars tree = new Handlebars();
+    Handlebars flat = new Handlebars();
+    flat.setFlatten(true);
+    Helper<Object> bold = new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options)
+          throws IOException {
+        return "<b>" + options.fn() + "</b>";
+      }
+    };
+    tree.registerHelper("bold", bold);
+    flat.registerHelper("bold", bold);
+    String source = "{{#bold}}{{#items}}{{.}}{{/items}}{{/bold}}"
+        + "{{#each items}}<{{.}}>{{/each}}{{#if yes}}y{{/if}}";
+    Object model = model("items", Arrays.asList("a", "b"), "yes", true);
+    assertEquals("<b>ab</b><a><b>y", tree.compile(source).apply(model));
+    assertEquals(tree.compile(source).apply(model),
+        flat.compile(source).apply(model));
+  }
+
+  @Test
+  public void partials() throws IOException {
+    TemplateLoader loader = new TemplateLoader() {
+      @Override
+      protected Reader read(final String location) throws IOException {
+        return new StringReader("<{{name}}>");
+      }
+    };
+    Handlebars tree = new Handlebars(loader);
+    Handlebars flat = new Handlebars(loader);
+    flat.setFlatten(true);
+    String source = "{{#items}}{{>item}}{{/items}}";
+    Object model =
+        model("items", Arrays.asList(model("name", "a"), model("name", "b")));
+    assertEquals("<a><b>", tree.compile(source).apply(model));
+    assertEquals("<a><b>", flat.compile(source).apply(model));
+  }
+
+  @Test
+  public void lowering() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    handlebars.setFlatten(true);
+    Template template = handlebars.compile("<p>\n  {{#a}}x{{/a}} y</p>");
+    assertTrue(template instanceof Program);
+    assertEquals("<p>\n  {{#a}}x{{/a}} y</p>", template.text());
+    int[] code = ((Program) template).code();
+    // TEXT, SECTION, TEXT, END, TEXT
+    assertEquals(Program.TEXT, code[0]);
+    assertEquals(Program.SECTION, code[2]);
+    assertEquals(Program.TEXT, code[6]);
+    assertEquals(Program.END, code[8]);
+    assertEquals(Program.TEXT, code[10]);
+    assertEquals(12, code.length);
+  }
+
+  @Test
+  public void errorPosition() throws IOException {
+    Handlebars handlebars = new Handlebars();
+    handlebars.setFlatten(true);
+    Template template = handlebars.compile("a\n{{#list}}\n {{bad 1}}{{/list}}");
+    try {
+      template.apply(model("list", Arrays.asList(1)));
+      fail("Bad helper");
+    } catch (HandlebarsException ex) {
+      assertTrue(ex.getMessage(),
+          ex.getMessage().startsWith("/embedded.hbs:3:"));
+    }
+  }
+
+  /**
+   * Render the source with both engines and compare the output.
+   *
+   * @param source The template.
+   * @param model The model.
+   * @throws IOException If the template can't be compiled.
+   */
+  private static void same(final String source, final Object model)
+      throws IOException {
+    Handlebars flat = new Handlebars();
+    flat.setFlatten(true);
+    Template program = flat.compile(source);
+    assertTrue(program instanceof Program);
+    assertEquals(new Handlebars().compile(source).apply(model),
+        program.apply(model));
+  }
+
+  /**
+   * Creates a model.
+   *
+   * @param pairs Names and values.
+   * @return A model.
+   */
+  private static Map<String, Object> model(final Object... pairs) {
+    Map<String, Object> model = new LinkedHashMap<String, Object>();
+    for (int i = 0; i < pairs.length; i += 2) {
+      model.put((String) pairs[i], pairs[i + 1]);
+    }
+    return model;
+  }
+}
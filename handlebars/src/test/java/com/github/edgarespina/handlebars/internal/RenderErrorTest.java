@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.HandlebarsException;
+import com.github.edgarespina.handlebars.Helper;
+import com.github.edgarespina.handlebars.Options;
+import com.github.edgarespina.handlebars.Template;
+
+/**
+ * Unit test for render errors: they are reported with the position of the
+ * failing node, at any depth.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class RenderErrorTest {
+
+  @Test
+  public void nestedVariable() throws IOException {
+    assertError("/embedded.hbs:3:7: ", false);
+  }
+
+  @Test
+  public void nestedVariableFlatten() throws IOException {
+    assertError("/embedded.hbs:3:7: ", true);
+  }
+
+  @Test
+  public void failingHelper() throws IOException {
+    Handlebars handlebars = handlebars(false);
+    Template template = handlebars.compile(
+        "{{#each list}}\n{{fail}}{{/each}}\n{{#fail}}x{{/fail}}");
+    try {
+      template.apply(model("list", Arrays.asList()));
+      fail("Helper must fail");
+    } catch (HandlebarsException ex) {
+      assertTrue(ex.getMessage(),
+          ex.getMessage().startsWith("/embedded.hbs:3:4: fail"));
+    }
+  }
+
+  @Test
+  public void helperBodyError() throws IOException {
+    assertRecovered(false);
+  }
+
+  @Test
+  public void helperBodyErrorFlatten() throws IOException {
+    assertRecovered(true);
+  }
+
+  @Test
+  public void deepStack() throws IOException {
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 40; i++) {
+      source.append("{{#bold}}");
+    }
+    source.append("x");
+    for (int i = 0; i < 40; i++) {
+      source.append("{{/bold}}");
+    }
+    Template template = handlebars(false).compile(source.toString());
+    assertEquals("x", template.apply(model()));
+  }
+
+  /**
+   * Render a template that fails in the body of a helper and in a section.
+   *
+   * @param prefix The expected message prefix.
+   * @param flatten True for rendering with {@link Program}.
+   * @throws IOException If the template can't be compiled.
+   */
+  private static void assertError(final String prefix, final boolean flatten)
+      throws IOException {
+    Template template = handlebars(flatten).compile(
+        "<ul>\n{{#bold}}{{#list}}\n<li>{{fail .}}</li>{{/list}}{{/bold}}</ul>");
+    try {
+      template.apply(model("list", Arrays.asList(1, 2)));
+      fail("Helper must fail");
+    } catch (HandlebarsException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().startsWith(prefix));
+      assertTrue(ex.getMessage(), ex.getMessage().endsWith("{{fail .}}"));
+    }
+  }
+
+  /**
+   * Render a template where a helper recovers from an error in its body, then
+   * a later node fails.
+   *
+   * @param flatten True for rendering with {@link Program}.
+   * @throws IOException If the template can't be compiled.
+   */
+  private static void assertRecovered(final boolean flatten)
+      throws IOException {
+    Handlebars handlebars = handlebars(flatten);
+    assertEquals("[/embedded.hbs:2:5: fail]",
+        handlebars.compile("{{#safe}}\n  {{fail}}{{/safe}}").apply(model()));
+    Template template =
+        handlebars.compile("{{#safe}}\n  {{fail}}{{/safe}}\n{{fail}}");
+    try {
+      template.apply(model());
+      fail("Helper must fail");
+    } catch (HandlebarsException ex) {
+      assertTrue(ex.getMessage(),
+          ex.getMessage().startsWith("/embedded.hbs:3:3: fail"));
+    }
+  }
+
+  /**
+   * Creates a handlebars object with a failing helper and a block helper.
+   *
+   * @param flatten True for rendering with {@link Program}.
+   * @return A handlebars object.
+   */
+  private static Handlebars handlebars(final boolean flatten) {
+    Handlebars handlebars = new Handlebars();
+    handlebars.setFlatten(flatten);
+    handlebars.registerHelper("fail", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options) {
+        throw new IllegalStateException("fail");
+      }
+    });
+    handlebars.registerHelper("safe", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options)
+          throws IOException {
+        try {
+          return options.fn();
+        } catch (HandlebarsException ex) {
+          return "[" + ex.getMessage().split("\n")[0] + "]";
+        }
+      }
+    });
+    handlebars.registerHelper("bold", new Helper<Object>() {
+      @Override
+      public CharSequence apply(final Object context, final Options options)
+          throws IOException {
+        return options.fn();
+      }
+    });
+    return handlebars;
+  }
+
+  /**
+   * Creates a model.
+   *
+   * @param pairs Names and values.
+   * @return A model.
+   */
+  private static Map<String, Object> model(final Object... pairs) {
+    Map<String, Object> model = new LinkedHashMap<String, Object>();
+    for (int i = 0; i < pairs.length; i += 2) {
+      model.put((String) pairs[i], pairs[i + 1]);
+    }
+    return model;
+  }
+}
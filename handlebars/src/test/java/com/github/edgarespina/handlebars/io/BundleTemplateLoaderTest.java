@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.io;
+
+import static com.github.edgarespina.handlebars.io.TempFiles.tempDir;
+import static com.github.edgarespina.handlebars.io.TempFiles.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.Template;
+import com.github.edgarespina.handlebars.TemplateLoader;
+
+/**
+ * Unit test for {@link BundleTemplateLoader}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class BundleTemplateLoaderTest {
+
+  @Test
+  public void bundle() throws IOException {
+    File dir = tempDir();
+    write(new File(dir, "home.hbs"), "Hello {{name}}! {{>partials/item}}");
+    File partials = new File(dir, "partials");
+    partials.mkdirs();
+    partials.deleteOnExit();
+    write(new File(dir, "partials/item.hbs"), "\u00a1{{name}}!");
+    File bundle = File.createTempFile("handlebars", ".bundle");
+    bundle.deleteOnExit();
+    BundleTemplateLoader.build(dir, bundle);
+
+    TemplateLoader loader = new BundleTemplateLoader(bundle);
+    loader.setCharset(Charset.forName("UTF-8"));
+    Template template =
+        new Handlebars(loader).compile(URI.create("home"));
+    Map<String, Object> model = new HashMap<String, Object>();
+    model.put("name", "bundle");
+    assertEquals("Hello bundle! \u00a1bundle!", template.apply(model));
+  }
+
+  @Test
+  public void rebuildInside() throws IOException {
+    File dir = tempDir();
+    write(new File(dir, "a.hbs"), "a");
+    write(new File(dir, "b.hbs"), "b");
+    // Sorted first, so a bad offset breaks every template.
+    File bundle = new File(dir, "0.bundle");
+    bundle.deleteOnExit();
+    BundleTemplateLoader.build(dir, bundle);
+    TemplateLoader before = new BundleTemplateLoader(bundle);
+    BundleTemplateLoader.build(dir, bundle);
+
+    TemplateLoader loader = new BundleTemplateLoader(bundle);
+    Handlebars handlebars = new Handlebars(loader);
+    assertEquals("a", handlebars.compile(URI.create("a")).apply(null));
+    assertEquals("b", handlebars.compile(URI.create("b")).apply(null));
+    assertEquals("b", new Handlebars(before).compile(URI.create("b"))
+        .apply(null));
+    assertTrue(bundle.delete());
+  }
+
+  @Test(expected = FileNotFoundException.class)
+  public void notFound() throws IOException {
+    File dir = tempDir();
+    write(new File(dir, "home.hbs"), "home");
+    File bundle = File.createTempFile("handlebars", ".bundle");
+    bundle.deleteOnExit();
+    BundleTemplateLoader.build(dir, bundle);
+    new BundleTemplateLoader(bundle).load(URI.create("missing"));
+  }
+}
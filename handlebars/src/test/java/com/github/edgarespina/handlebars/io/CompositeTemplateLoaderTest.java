@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.edgarespina.handlebars.Handlebars;
+import com.github.edgarespina.handlebars.MapTemplateLoader;
+
+/**
+ * Unit test for {@link CompositeTemplateLoader}.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+public class CompositeTemplateLoaderTest {
+
+  @Test
+  public void tiers() throws IOException {
+    Map<String, String> tenant = new HashMap<String, String>();
+    tenant.put("/home.hbs", "tenant home");
+    Map<String, String> shared = new HashMap<String, String>();
+    shared.put("/home.hbs", "shared home");
+    shared.put("/footer.hbs", "shared footer");
+    CompositeTemplateLoader loader = new CompositeTemplateLoader(
+        new MapTemplateLoader(tenant), new MapTemplateLoader(shared));
+    Handlebars handlebars = new Handlebars(loader);
+
+    assertEquals("tenant home",
+        handlebars.compile(URI.create("home")).apply(null));
+    assertEquals("shared footer",
+        handlebars.compile(URI.create("footer")).apply(null));
+    assertEquals("shared footer",
+        handlebars.compile(URI.create("footer")).apply(null));
+    assertEquals(2, loader.lookups(0));
+    assertEquals(1, loader.hits(0));
+    assertEquals(2, loader.lookups(1));
+    assertEquals(2, loader.hits(1));
+  }
+
+  @Test
+  public void missing() throws IOException {
+    CompositeTemplateLoader loader = new CompositeTemplateLoader(
+        new MapTemplateLoader(new HashMap<String, String>()),
+        new MapTemplateLoader(new HashMap<String, String>()));
+    for (int i = 0; i < 3; i++) {
+      try {
+        loader.load(URI.create("missing"));
+        fail("template not found expected");
+      } catch (FileNotFoundException ex) {
+        assertEquals("/missing.hbs", ex.getMessage());
+      }
+    }
+    assertEquals(1, loader.lookups(0));
+    assertEquals(1, loader.lookups(1));
+  }
+
+  @Test
+  public void noCache() throws IOException {
+    Map<String, String> tenant = new HashMap<String, String>();
+    Map<String, String> shared = new HashMap<String, String>();
+    shared.put("/home.hbs", "shared home");
+    CompositeTemplateLoader loader = new CompositeTemplateLoader(
+        new MapTemplateLoader(tenant), new MapTemplateLoader(shared));
+    loader.setTimeToLive(0, TimeUnit.SECONDS);
+    Handlebars handlebars = new Handlebars(loader);
+    assertEquals("shared home",
+        handlebars.compile(URI.create("home")).apply(null));
+    tenant.put("/home.hbs", "tenant home");
+    assertEquals("tenant home",
+        handlebars.compile(URI.create("home")).apply(null));
+  }
+
+  @Test
+  public void bounded() throws IOException {
+    CompositeTemplateLoader loader = new CompositeTemplateLoader(
+        new MapTemplateLoader(new HashMap<String, String>()));
+    loader.setMaxSize(10);
+    for (int i = 0; i < 100; i++) {
+      try {
+        loader.load(URI.create("missing" + i));
+        fail("template not found expected");
+      } catch (FileNotFoundException ex) {
+        assertTrue(loader.size() <= 10);
+      }
+    }
+    loader.clear();
+    assertEquals(0, loader.size());
+  }
+
+  @Test
+  public void noCacheRemembersNothing() throws IOException {
+    CompositeTemplateLoader loader = new CompositeTemplateLoader(
+        new MapTemplateLoader(new HashMap<String, String>()));
+    loader.setTimeToLive(0, TimeUnit.SECONDS);
+    try {
+      loader.load(URI.create("missing"));
+      fail("template not found expected");
+    } catch (FileNotFoundException ex) {
+      assertEquals(0, loader.size());
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void prefix() {
+    new CompositeTemplateLoader(
+        new MapTemplateLoader(new HashMap<String, String>()))
+        .setPrefix("/templates");
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void charset() {
+    new CompositeTemplateLoader(
+        new MapTemplateLoader(new HashMap<String, String>()))
+        .setCharset(Charset.forName("UTF-8"));
+  }
+}
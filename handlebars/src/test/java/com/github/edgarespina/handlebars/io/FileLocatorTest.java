@@ -17,6 +17,9 @@
  */
 package com.github.edgarespina.handlebars.io;
 
+import static com.github.edgarespina.handlebars.io.TempFiles.tempDir;
+import static com.github.edgarespina.handlebars.io.TempFiles.write;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 import java.io.File;
@@ -24,6 +27,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.Reader;
 import java.net.URI;
+import java.nio.charset.Charset;
 
 import org.junit.Test;
 
@@ -84,4 +88,36 @@ public class FileLocatorTest {
     assertNotNull(reader);
   }
 
+  @Test
+  public void charset() throws IOException {
+    File dir = tempDir();
+    write(new File(dir, "utf8.hbs"), "ni\u00f1o \u20ac");
+    TemplateLoader locator = new FileTemplateLoader(dir);
+    locator.setCharset(Charset.forName("UTF-8"));
+    assertEquals("ni\u00f1o \u20ac", read(locator.load(URI.create("utf8"))));
+  }
+
+  @Test
+  public void bigFile() throws IOException {
+    File dir = tempDir();
+    StringBuilder text = new StringBuilder();
+    while (text.length() <= 256 * 1024) {
+      text.append("{{name}} \u00e1\n");
+    }
+    write(new File(dir, "big.hbs"), text.toString());
+    TemplateLoader locator = new FileTemplateLoader(dir);
+    locator.setCharset(Charset.forName("UTF-8"));
+    assertEquals(text.toString(), read(locator.load(URI.create("big"))));
+  }
+
+  private static String read(final Reader reader) throws IOException {
+    StringBuilder buffer = new StringBuilder();
+    char[] chunk = new char[1024];
+    int len;
+    while ((len = reader.read(chunk)) != -1) {
+      buffer.append(chunk, 0, len);
+    }
+    reader.close();
+    return buffer.toString();
+  }
 }
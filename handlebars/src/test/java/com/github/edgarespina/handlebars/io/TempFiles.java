@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2012 Edgar Espina
+ *
+ * This file is part of Handlebars.java.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.edgarespina.handlebars.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Temporary files for the loader tests. They are deleted on exit.
+ *
+ * @author edgar.espina
+ * @since 0.2.2
+ */
+final class TempFiles {
+
+  private TempFiles() {
+  }
+
+  public static File tempDir() throws IOException {
+    File dir = File.createTempFile("handlebars", "");
+    dir.delete();
+    dir.mkdirs();
+    dir.deleteOnExit();
+    return dir;
+  }
+
+  public static void write(final File file, final String text)
+      throws IOException {
+    file.deleteOnExit();
+    Writer writer =
+        new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    try {
+      writer.write(text);
+    } finally {
+      writer.close();
+    }
+  }
+}